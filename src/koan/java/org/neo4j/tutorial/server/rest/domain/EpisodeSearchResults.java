@@ -1,27 +1,45 @@
 package org.neo4j.tutorial.server.rest.domain;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Episode search results, made from each traversal result as it is iterated. Given a
+ * {@link org.neo4j.tutorial.server.rest.JsonResultStream}, results are read off the response as
+ * they are needed rather than all parsed up front.
+ */
 public class EpisodeSearchResults implements Iterable<EpisodeSearchResult>
 {
-    private List<EpisodeSearchResult> results;
+    private final Iterable<Map<String, Object>> json;
 
-    @SuppressWarnings("unchecked")
-    public EpisodeSearchResults(List<Map<String, Object>> json)
+    public EpisodeSearchResults(Iterable<Map<String, Object>> json)
     {
         super();
-        this.results = new ArrayList<EpisodeSearchResult>();
-        for (Map<String, Object> result : json)
-        {
-            results.add(new EpisodeSearchResult((List<Map<String, Object>>) result.get("nodes")));
-        }
+        this.json = json;
     }
 
     public Iterator<EpisodeSearchResult> iterator()
     {
-        return results.iterator();
+        final Iterator<Map<String, Object>> results = json.iterator();
+        return new Iterator<EpisodeSearchResult>()
+        {
+            public boolean hasNext()
+            {
+                return results.hasNext();
+            }
+
+            @SuppressWarnings("unchecked")
+            public EpisodeSearchResult next()
+            {
+                return new EpisodeSearchResult((List<Map<String, Object>>) results.next()
+                                                                                  .get("nodes"));
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 }
@@ -2,7 +2,6 @@ package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.index.Index;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -43,20 +42,19 @@ public class ActorBuilder
     {
         Node actor = ensureActorIsInDb(db);
         ensureCharacterIsInDb(actor, db);
+        GenerationScope.of(db).operationCompleted();
     }
 
     private Node ensureActorIsInDb(GraphDatabaseService db)
     {
-        Index<Node> index = db.index().forNodes("actors");
-        Node actor = index.get("actor", actorName).getSingle();
+        GenerationScope scope = GenerationScope.of(db);
+        Node actor = scope.getOrCreate("actors", "actor", actorName);
 
-        if (actor == null)
+        if (wikipediaUri != null || cash > 0)
         {
-            actor = db.createNode();
-            actor.setProperty("actor", actorName);
-            index.add(actor, "actor", actorName);
+            scope.beforeWriting(actor);
         }
-        
+
         if(wikipediaUri != null) {
             actor.setProperty("wikipedia", wikipediaUri);
         }
@@ -75,11 +73,11 @@ public class ActorBuilder
         {
             new CharacterBuilder(characterName).fact(db);
 
-            Node character = db.index().forNodes("characters").get("character", characterName).getSingle();
+            Node character = GenerationScope.of(db).lookup("characters", "character", characterName);
 
             if (actor != null && character != null)
             {
-                ensureRelationshipInDb(actor, DoctorWhoRelationships.PLAYED, character);
+                ensureRelationshipInDb(actor, DoctorWhoRelationships.PLAYED, character, db);
             }
         }
     }
@@ -1,7 +1,6 @@
 package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Transaction;
 import static org.neo4j.tutorial.ActorBuilder.actor;
 
 public class Actors
@@ -16,7 +15,7 @@ public class Actors
 
     public void insert()
     {
-        Transaction tx = db.beginTx();
+        ChunkedTransaction tx = GenerationScope.of(db).beginTx();
         try
         {
             actor("David Tennant").wikipedia("http://en.wikipedia.org/wiki/David_Tennant").played("Doctor").salary(1000000).fact(db);
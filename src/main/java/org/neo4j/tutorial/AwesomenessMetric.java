@@ -0,0 +1,15 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+/**
+ * A way of rating how awesome nodes are by how they are connected to the Doctor.
+ */
+public interface AwesomenessMetric
+{
+    /**
+     * Rates every node the metric reaches from the Doctor. Nodes it does not reach are not rated.
+     */
+    LongDoubleMap rateEverything(GraphDatabaseService db, Node theDoctor);
+}
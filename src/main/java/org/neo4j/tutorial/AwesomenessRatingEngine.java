@@ -1,29 +1,211 @@
 package org.neo4j.tutorial;
 
-import org.neo4j.cypher.ExecutionEngine;
-import org.neo4j.cypher.ExecutionResult;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.helpers.Predicate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class AwesomenessRatingEngine
 {
+    public static final int MAX_HOPS = 15;
+
+    private final HopDistance hopDistance;
+
+    public AwesomenessRatingEngine()
+    {
+        this(new CypherHopDistance());
+    }
+
+    public AwesomenessRatingEngine(HopDistance hopDistance)
+    {
+        this.hopDistance = hopDistance;
+    }
+
+    /**
+     * @return 100/(hops+1) for a node the given number of hops from the Doctor, or 0 if it is more
+     *         than {@link #MAX_HOPS} away
+     */
     public double rateAwesomeness(GraphDatabaseService db, long nodeId)
     {
-        ExecutionEngine engine = new ExecutionEngine(db);
-        String cql = "start n=node("+ nodeId +"), doctor=node:characters(character='Doctor') "
-                + "match p=shortestPath(n-[*..15]-doctor)"
-                + "return length(p) as hops";
+        Node theDoctor = theDoctor(db);
+        int hops = hopDistance.hops(db, nodeId, theDoctor.getId(), MAX_HOPS);
+        if (hops == HopDistance.UNREACHABLE)
+        {
+            return 0;
+        }
+
+        return rating(hops);
+    }
+
+    /**
+     * Rates every node within {@link #MAX_HOPS} of the Doctor with one breadth first search out from
+     * the Doctor, rather than a shortest path search per node. Nodes further away are not rated.
+     */
+    public LongDoubleMap rateAwesomenessOfEverything(GraphDatabaseService db)
+    {
+        return rateAwesomenessOfEverything(db, theDoctor(db));
+    }
+
+    /**
+     * Rates every node within {@link #MAX_HOPS} of the given Doctor node, as
+     * {@link #rateAwesomenessOfEverything(GraphDatabaseService)} does for the indexed one.
+     */
+    public LongDoubleMap rateAwesomenessOfEverything(GraphDatabaseService db, Node theDoctor)
+    {
+        LongDoubleMap ratings = new LongDoubleMap();
+        if (theDoctor == null)
+        {
+            return ratings;
+        }
+
+        long[] frontier = {theDoctor.getId()};
+        int frontierSize = 1;
+        ratings.put(theDoctor.getId(), rating(0));
+
+        for (int hops = 1; hops <= MAX_HOPS && frontierSize > 0; hops++)
+        {
+            long[] nextFrontier = new long[Math.max(16, frontierSize)];
+            int nextFrontierSize = 0;
+            double rating = rating(hops);
+
+            for (int i = 0; i < frontierSize; i++)
+            {
+                Node node = db.getNodeById(frontier[i]);
+                for (Relationship relationship : node.getRelationships())
+                {
+                    long other = relationship.getOtherNode(node).getId();
+                    if (ratings.containsKey(other))
+                    {
+                        continue;
+                    }
+                    ratings.put(other, rating);
+                    if (nextFrontierSize == nextFrontier.length)
+                    {
+                        nextFrontier = Arrays.copyOf(nextFrontier, nextFrontierSize * 2);
+                    }
+                    nextFrontier[nextFrontierSize++] = other;
+                }
+            }
 
+            frontier = nextFrontier;
+            frontierSize = nextFrontierSize;
+        }
 
+        return ratings;
+    }
+
+    /**
+     * The k most awesome nodes that qualify, most awesome first, found by walking out from the Doctor
+     * one hop at a time and stopping as soon as k have been seen. Nodes closer to the Doctor always
+     * rate higher, so no node further out could displace them; ties with the last of them are broken
+     * by the order the walk met them in.
+     */
+    public List<RatedNode> mostAwesome(GraphDatabaseService db, int k, Predicate<Node> qualifies)
+    {
+        List<RatedNode> mostAwesome = new ArrayList<RatedNode>(k);
+        Node theDoctor = theDoctor(db);
+        if (theDoctor == null || k <= 0)
+        {
+            return mostAwesome;
+        }
 
-        ExecutionResult result = engine.execute(cql);
+        LongSet visited = new LongSet();
+        visited.add(theDoctor.getId());
+        if (qualifies.accept(theDoctor))
+        {
+            mostAwesome.add(new RatedNode(theDoctor, rating(0)));
+        }
 
-        int hops = Integer.valueOf(String.valueOf(result.javaColumnAs("hops").next()));
+        long[] frontier = {theDoctor.getId()};
+        int frontierSize = 1;
+        for (int hops = 1; hops <= MAX_HOPS && frontierSize > 0 && mostAwesome.size() < k; hops++)
+        {
+            long[] nextFrontier = new long[Math.max(16, frontierSize)];
+            int nextFrontierSize = 0;
 
-        double ratio = 100/((hops + 1) *1.0);
+            for (int i = 0; i < frontierSize && mostAwesome.size() < k; i++)
+            {
+                Node node = db.getNodeById(frontier[i]);
+                for (Relationship relationship : node.getRelationships())
+                {
+                    Node other = relationship.getOtherNode(node);
+                    if (!visited.add(other.getId()))
+                    {
+                        continue;
+                    }
+                    if (qualifies.accept(other))
+                    {
+                        mostAwesome.add(new RatedNode(other, rating(hops)));
+                        if (mostAwesome.size() == k)
+                        {
+                            break;
+                        }
+                    }
+                    if (nextFrontierSize == nextFrontier.length)
+                    {
+                        nextFrontier = Arrays.copyOf(nextFrontier, nextFrontierSize * 2);
+                    }
+                    nextFrontier[nextFrontierSize++] = other.getId();
+                }
+            }
 
+            frontier = nextFrontier;
+            frontierSize = nextFrontierSize;
+        }
+        return mostAwesome;
+    }
 
-        return ratio;
+    /**
+     * Qualifies nodes that are in the given node index under their own value of the given key, as
+     * characters are in the characters index under their character name.
+     */
+    public static Predicate<Node> indexedIn(final GraphDatabaseService db, final String indexName, final String key)
+    {
+        return new Predicate<Node>()
+        {
+            public boolean accept(Node node)
+            {
+                Object value = node.getProperty(key, null);
+                if (value == null)
+                {
+                    return false;
+                }
+                IndexHits<Node> hits = db.index()
+                                         .forNodes(indexName)
+                                         .get(key, value);
+                try
+                {
+                    for (Node indexed : hits)
+                    {
+                        if (indexed.equals(node))
+                        {
+                            return true;
+                        }
+                    }
+                    return false;
+                } finally
+                {
+                    hits.close();
+                }
+            }
+        };
+    }
+
+    private static Node theDoctor(GraphDatabaseService db)
+    {
+        return db.index()
+                 .forNodes("characters")
+                 .get("character", "Doctor")
+                 .getSingle();
+    }
+
+    static double rating(int hops)
+    {
+        return 100 / ((hops + 1) * 1.0);
     }
-    
-    
 }
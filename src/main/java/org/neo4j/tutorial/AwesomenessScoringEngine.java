@@ -0,0 +1,42 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+/**
+ * Rates awesomeness with whichever {@link AwesomenessMetric} it is given, such as
+ * {@link HopCountMetric}, {@link WeightedDistanceMetric} or {@link PathDecayMetric}.
+ */
+public class AwesomenessScoringEngine
+{
+    private final AwesomenessMetric metric;
+
+    public AwesomenessScoringEngine(AwesomenessMetric metric)
+    {
+        this.metric = metric;
+    }
+
+    public LongDoubleMap scoreEverything(GraphDatabaseService db)
+    {
+        Node theDoctor = db.index()
+                           .forNodes("characters")
+                           .get("character", "Doctor")
+                           .getSingle();
+        if (theDoctor == null)
+        {
+            return new LongDoubleMap();
+        }
+        return metric.rateEverything(db, theDoctor);
+    }
+
+    /**
+     * Rates the whole universe to answer for one node, so callers looking up more than one rating
+     * should call {@link #scoreEverything(GraphDatabaseService)} once and read from its map.
+     *
+     * @return the node's rating, or 0 if the metric does not reach it
+     */
+    public double score(GraphDatabaseService db, long nodeId)
+    {
+        return scoreEverything(db).get(nodeId, 0);
+    }
+}
@@ -0,0 +1,90 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.Arrays;
+
+/**
+ * Hop distance from a breadth first search out from both nodes at once, one level at a time,
+ * always growing whichever side has the smaller frontier. Searching from a hub such as the Doctor
+ * then stays on the other side for as long as that side is the cheaper one to grow. Visited nodes
+ * are kept in primitive sets.
+ */
+public class BidirectionalHopDistance implements HopDistance
+{
+    public int hops(GraphDatabaseService db, long fromNodeId, long toNodeId, int maxHops)
+    {
+        if (fromNodeId == toNodeId)
+        {
+            return 0;
+        }
+
+        Side from = new Side(fromNodeId);
+        Side to = new Side(toNodeId);
+
+        // when a level first reaches the other side's visited nodes, no path shorter than both depths
+        // plus one has been missed, so that is the distance
+        while (from.depth + to.depth < maxHops && from.frontierSize > 0 && to.frontierSize > 0)
+        {
+            Side smaller = from.frontierSize <= to.frontierSize ? from : to;
+            Side other = smaller == from ? to : from;
+            if (smaller.expand(db, other))
+            {
+                return from.depth + to.depth;
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    private static class Side
+    {
+        private final LongSet visited = new LongSet();
+        private long[] frontier = new long[16];
+        private int frontierSize;
+        private int depth = 0;
+
+        Side(long start)
+        {
+            visited.add(start);
+            frontier[0] = start;
+            frontierSize = 1;
+        }
+
+        /**
+         * Grows this side by one level.
+         *
+         * @return true if the new level touches the other side
+         */
+        boolean expand(GraphDatabaseService db, Side other)
+        {
+            long[] next = new long[Math.max(16, frontierSize)];
+            int nextSize = 0;
+            depth++;
+            for (int i = 0; i < frontierSize; i++)
+            {
+                Node node = db.getNodeById(frontier[i]);
+                for (Relationship relationship : node.getRelationships())
+                {
+                    long neighbour = relationship.getOtherNode(node).getId();
+                    if (other.visited.contains(neighbour))
+                    {
+                        return true;
+                    }
+                    if (visited.add(neighbour))
+                    {
+                        if (nextSize == next.length)
+                        {
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = neighbour;
+                    }
+                }
+            }
+            frontier = next;
+            frontierSize = nextSize;
+            return false;
+        }
+    }
+}
@@ -50,17 +50,14 @@ public class CharacterBuilder
     public void fact( GraphDatabaseService db )
     {
         Node characterNode = ensureCharacterIsInDb( characterName, db );
-        Node theDoctor = db.index()
-                .forNodes( "characters" )
-                .get( "character", "Doctor" )
-                .getSingle();
+        Node theDoctor = GenerationScope.of( db ).lookup( "characters", "character", "Doctor" );
 
         if ( species != null )
         {
             for ( String speciesString : species )
             {
                 ensureRelationshipInDb( characterNode, DoctorWhoRelationships.IS_A,
-                        SpeciesBuilder.ensureSpeciesInDb( speciesString, db ) );
+                        SpeciesBuilder.ensureSpeciesInDb( speciesString, db ), db );
             }
         }
 
@@ -76,7 +73,7 @@ public class CharacterBuilder
 
         if ( ally )
         {
-            ensureRelationshipInDb( characterNode, DoctorWhoRelationships.ALLY_OF, theDoctor );
+            ensureRelationshipInDb( characterNode, DoctorWhoRelationships.ALLY_OF, theDoctor, db );
         }
 
         if ( loverNames != null )
@@ -100,66 +97,47 @@ public class CharacterBuilder
         }
         
         if(wikipediaUri != null) {
+            GenerationScope.of( db ).beforeWriting( characterNode );
             characterNode.setProperty("wikipedia", wikipediaUri);
         }
+
+        GenerationScope.of( db ).operationCompleted();
     }
 
     public static void ensureAllyOfRelationshipInDb( Node allyNode, GraphDatabaseService db )
     {
-        Node theDoctor = db.index()
-                .forNodes( "characters" )
-                .get( "character", "Doctor" )
-                .getSingle();
-        ensureRelationshipInDb( allyNode, DoctorWhoRelationships.ALLY_OF, theDoctor );
-        ensureRelationshipInDb( theDoctor, DoctorWhoRelationships.ALLY_OF, allyNode );
+        Node theDoctor = GenerationScope.of( db ).lookup( "characters", "character", "Doctor" );
+        ensureRelationshipInDb( allyNode, DoctorWhoRelationships.ALLY_OF, theDoctor, db );
+        ensureRelationshipInDb( theDoctor, DoctorWhoRelationships.ALLY_OF, allyNode, db );
     }
 
     public static void ensureEnemyOfRelationshipInDb( Node enemyNode, GraphDatabaseService db )
     {
-        Node theDoctor = db.index()
-                .forNodes( "characters" )
-                .get( "character", "Doctor" )
-                .getSingle();
-        ensureRelationshipInDb( enemyNode, DoctorWhoRelationships.ENEMY_OF, theDoctor );
-        ensureRelationshipInDb( theDoctor, DoctorWhoRelationships.ENEMY_OF, enemyNode );
+        Node theDoctor = GenerationScope.of( db ).lookup( "characters", "character", "Doctor" );
+        ensureRelationshipInDb( enemyNode, DoctorWhoRelationships.ENEMY_OF, theDoctor, db );
+        ensureRelationshipInDb( theDoctor, DoctorWhoRelationships.ENEMY_OF, enemyNode, db );
     }
 
     public static void ensureCompanionRelationshipInDb( Node companionNode, GraphDatabaseService db )
     {
-        Node theDoctor = db.index()
-                .forNodes( "characters" )
-                .get( "character", "Doctor" )
-                .getSingle();
-        ensureRelationshipInDb( companionNode, DoctorWhoRelationships.COMPANION_OF, theDoctor );
+        Node theDoctor = GenerationScope.of( db ).lookup( "characters", "character", "Doctor" );
+        ensureRelationshipInDb( companionNode, DoctorWhoRelationships.COMPANION_OF, theDoctor, db );
     }
 
     public void ensureActorsInDb( Node characterNode, List<String> actors, GraphDatabaseService db )
     {
+        GenerationScope scope = GenerationScope.of( db );
         Node previousActorNode = null;
         for ( String actor : actors )
         {
-            Node theActorNode = db.index()
-                    .forNodes( "actors" )
-                    .get( "actor", actor )
-                    .getSingle();
-            if ( theActorNode == null )
-            {
-                theActorNode = db.createNode();
-                theActorNode.setProperty( "actor", actor );
-                db.index()
-                        .forNodes( "actors" )
-                        .add( theActorNode, "actor", actor );
-            }
+            Node theActorNode = scope.getOrCreate( "actors", "actor", actor );
 
-            ensureRelationshipInDb( theActorNode, DoctorWhoRelationships.PLAYED, characterNode );
-            db.index()
-                    .forNodes( "actors" )
-                    .add( theActorNode, "actor", actor );
+            ensureRelationshipInDb( theActorNode, DoctorWhoRelationships.PLAYED, characterNode, db );
 
             if ( previousActorNode != null )
             {
                 ensureRelationshipInDb( previousActorNode, DoctorWhoRelationships.REGENERATED_TO, theActorNode,
-                        map( "year", startDates.get( actor ) ) );
+                        map( "year", startDates.get( actor ) ), db );
             }
 
             previousActorNode = theActorNode;
@@ -183,91 +161,34 @@ public class CharacterBuilder
     {
         for ( String thing : things )
         {
-            ensureRelationshipInDb( characterNode, DoctorWhoRelationships.OWNS, ensureThingInDb( thing, db ) );
+            ensureRelationshipInDb( characterNode, DoctorWhoRelationships.OWNS, ensureThingInDb( thing, db ), db );
         }
     }
 
     private static Node ensureThingInDb( String thing, GraphDatabaseService database )
     {
-        Node theThingNode = database.index()
-                .forNodes( "things" )
-                .get( "thing", thing )
-                .getSingle();
-        if ( theThingNode == null )
-        {
-            theThingNode = database.createNode();
-            theThingNode.setProperty( "thing", thing );
-            ensureThingIsIndexed( theThingNode, database );
-        }
-
-        return theThingNode;
-    }
-
-    private static void ensureThingIsIndexed( Node thingNode, GraphDatabaseService database )
-    {
-        database.index()
-                .forNodes( "things" )
-                .add( thingNode, "thing", thingNode.getProperty( "thing" ) );
+        return GenerationScope.of( database ).getOrCreate( "things", "thing", thing );
     }
 
     private static Node ensurePlanetInDb( Node characterNode, String planet, GraphDatabaseService database )
     {
-        Node thePlanetNode = database.index()
-                .forNodes( "planets" )
-                .get( "planet", planet )
-                .getSingle();
-        if ( thePlanetNode == null )
-        {
-            thePlanetNode = database.createNode();
-            thePlanetNode.setProperty( "planet", planet );
-            ensurePlanetIsIndexed( thePlanetNode, database );
-        }
+        Node thePlanetNode = PlanetBuilder.ensurePlanetInDb( planet, database );
 
-        ensureRelationshipInDb( characterNode, DoctorWhoRelationships.COMES_FROM, thePlanetNode );
+        ensureRelationshipInDb( characterNode, DoctorWhoRelationships.COMES_FROM, thePlanetNode, database );
 
         return thePlanetNode;
     }
 
-    private static void ensurePlanetIsIndexed( Node thePlanetNode, GraphDatabaseService database )
-    {
-        database.index()
-                .forNodes( "planets" )
-                .add( thePlanetNode, "planet", thePlanetNode.getProperty( "planet" ) );
-    }
-
     public static Node ensureCharacterIsInDb( String name, GraphDatabaseService db )
     {
-        Node theCharacterNode = db.index()
-                .forNodes( "characters" )
-                .get( "character", name )
-                .getSingle();
-        if ( theCharacterNode == null )
-        {
-            theCharacterNode = db.createNode();
-            theCharacterNode.setProperty( "character", name );
-            ensureCharacterIsIndexed( theCharacterNode, db );
-        }
-        return theCharacterNode;
-    }
-
-    private static void ensureCharacterIsIndexed( Node characterNode, GraphDatabaseService database )
-    {
-        if ( database.index()
-                .forNodes( "characters" )
-                .get( "character", characterNode.getProperty( "character" ) )
-                .getSingle() == null )
-        {
-            database.index()
-                    .forNodes( "characters" )
-                    .add( characterNode, "character", characterNode.getProperty( "character" ) );
-        }
+        return GenerationScope.of( db ).getOrCreate( "characters", "character", name );
     }
 
     private static void ensureLoversInDb( Node characterNode, String[] loverNames, GraphDatabaseService db )
     {
         for ( String lover : loverNames )
         {
-            ensureRelationshipInDb( characterNode, DoctorWhoRelationships.LOVES, ensureCharacterIsInDb( lover, db ) );
+            ensureRelationshipInDb( characterNode, DoctorWhoRelationships.LOVES, ensureCharacterIsInDb( lover, db ), db );
         }
     }
 
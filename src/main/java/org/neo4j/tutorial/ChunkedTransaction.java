@@ -0,0 +1,122 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * A transaction that commits and starts over every so many operations, as set by its
+ * {@link CommitPolicy}, to keep the state held by any one transaction bounded. Used like a
+ * {@link Transaction}; marking it failed only rolls back the batch in progress. Whenever a batch
+ * rolls back its {@link GenerationScope} is told, since the scope may have cached what was lost.
+ */
+public class ChunkedTransaction
+{
+    private final GraphDatabaseService db;
+    private final CommitPolicy commitPolicy;
+    private final CommitReport commitReport;
+    private final GenerationScope scope;
+    private final ChunkedTransaction outer;
+    private Transaction tx;
+    private int operations = 0;
+    private boolean successful = false;
+    private boolean failed = false;
+
+    ChunkedTransaction(GraphDatabaseService db, CommitPolicy commitPolicy, CommitReport commitReport,
+                       GenerationScope scope, ChunkedTransaction outer)
+    {
+        this.db = db;
+        this.commitPolicy = commitPolicy;
+        this.commitReport = commitReport;
+        this.scope = scope;
+        this.outer = outer;
+        this.tx = db.beginTx();
+    }
+
+    public void operationCompleted()
+    {
+        if (++operations >= commitPolicy.getOperationsPerCommit())
+        {
+            commitNow();
+        }
+    }
+
+    /**
+     * Commits the batch in progress early, unless it has been marked failed. The next batch begins
+     * even when the commit fails, so that {@link #finish()} always has a transaction to finish.
+     */
+    void commitNow()
+    {
+        if (!failed)
+        {
+            tx.success();
+            try
+            {
+                commit();
+            } finally
+            {
+                tx = db.beginTx();
+            }
+        }
+    }
+
+    /**
+     * Marks the whole transaction successful, including batches begun after this call.
+     */
+    public void success()
+    {
+        successful = true;
+        tx.success();
+    }
+
+    public void failure()
+    {
+        failed = true;
+        tx.failure();
+    }
+
+    public void finish()
+    {
+        try
+        {
+            if (successful && !failed)
+            {
+                tx.success();
+                commit();
+            }
+            else
+            {
+                rollback();
+            }
+        } finally
+        {
+            scope.transactionFinished(this, outer);
+        }
+    }
+
+    private void commit()
+    {
+        long start = System.nanoTime();
+        try
+        {
+            tx.finish();
+        } catch (RuntimeException e)
+        {
+            scope.rolledBack(this);
+            throw e;
+        }
+        scope.committed(this);
+        commitReport.committed(operations, System.nanoTime() - start);
+        operations = 0;
+    }
+
+    private void rollback()
+    {
+        try
+        {
+            tx.finish();
+        } finally
+        {
+            scope.rolledBack(this);
+        }
+    }
+}
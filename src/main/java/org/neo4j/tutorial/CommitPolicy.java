@@ -0,0 +1,33 @@
+package org.neo4j.tutorial;
+
+/**
+ * How many builder operations go into each transaction while a universe is being generated.
+ */
+public final class CommitPolicy
+{
+    private final int operationsPerCommit;
+
+    public static CommitPolicy singleTransaction()
+    {
+        return new CommitPolicy(Integer.MAX_VALUE);
+    }
+
+    public static CommitPolicy commitEvery(int operations)
+    {
+        if (operations < 1)
+        {
+            throw new IllegalArgumentException("Must commit after at least one operation");
+        }
+        return new CommitPolicy(operations);
+    }
+
+    private CommitPolicy(int operationsPerCommit)
+    {
+        this.operationsPerCommit = operationsPerCommit;
+    }
+
+    public int getOperationsPerCommit()
+    {
+        return operationsPerCommit;
+    }
+}
@@ -0,0 +1,66 @@
+package org.neo4j.tutorial;
+
+import java.util.Arrays;
+
+/**
+ * Commit latencies of the transactions made while generating a universe, one entry per batch.
+ */
+public class CommitReport
+{
+    private long[] latencies = new long[16];
+    private int commits = 0;
+    private long operations = 0;
+
+    synchronized void committed(int operationsInBatch, long latencyNanos)
+    {
+        if (commits == latencies.length)
+        {
+            latencies = Arrays.copyOf(latencies, commits * 2);
+        }
+        latencies[commits++] = latencyNanos;
+        operations += operationsInBatch;
+    }
+
+    public synchronized int getCommits()
+    {
+        return commits;
+    }
+
+    public synchronized long getOperations()
+    {
+        return operations;
+    }
+
+    public synchronized long[] getCommitLatenciesNanos()
+    {
+        return Arrays.copyOf(latencies, commits);
+    }
+
+    public synchronized long getMaxCommitLatencyNanos()
+    {
+        long max = 0;
+        for (int i = 0; i < commits; i++)
+        {
+            max = Math.max(max, latencies[i]);
+        }
+        return max;
+    }
+
+    public synchronized long getTotalCommitLatencyNanos()
+    {
+        long total = 0;
+        for (int i = 0; i < commits; i++)
+        {
+            total += latencies[i];
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("%d commits of %d operations, %d ms committing in total, %d ms at most",
+                             commits, operations, getTotalCommitLatencyNanos() / 1000000,
+                             getMaxCommitLatencyNanos() / 1000000);
+    }
+}
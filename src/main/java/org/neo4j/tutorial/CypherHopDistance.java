@@ -0,0 +1,30 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.cypher.ExecutionResult;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.helpers.collection.MapUtil;
+
+import java.util.Iterator;
+
+/**
+ * Hop distance from a Cypher shortestPath query.
+ */
+public class CypherHopDistance implements HopDistance
+{
+    public int hops(GraphDatabaseService db, long fromNodeId, long toNodeId, int maxHops)
+    {
+        String cql = "start n=node({from}), m=node({to}) "
+                + "match p=shortestPath(n-[*.." + maxHops + "]-m) "
+                + "return length(p) as hops";
+
+        ExecutionResult result = CypherStatements.forDatabase(db)
+                                                 .execute(cql, MapUtil.map("from", fromNodeId, "to", toNodeId));
+
+        Iterator<Object> hops = result.javaColumnAs("hops");
+        if (!hops.hasNext())
+        {
+            return UNREACHABLE;
+        }
+        return Integer.valueOf(String.valueOf(hops.next()));
+    }
+}
@@ -0,0 +1,74 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.cypher.ExecutionEngine;
+import org.neo4j.cypher.ExecutionResult;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.event.ErrorState;
+import org.neo4j.graphdb.event.KernelEventHandler;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * One long-lived Cypher engine per database. The engine keeps the execution plans of the queries it
+ * has run, keyed by query text, so queries should take their values as parameters: then running the
+ * same query for many nodes plans it once. The engine for a database is dropped when the database
+ * shuts down.
+ */
+public class CypherStatements
+{
+    private static final Map<GraphDatabaseService, CypherStatements> statements = Collections.synchronizedMap(
+            new IdentityHashMap<GraphDatabaseService, CypherStatements>());
+
+    private final GraphDatabaseService db;
+    private final ExecutionEngine engine;
+
+    public static CypherStatements forDatabase(GraphDatabaseService db)
+    {
+        synchronized (statements)
+        {
+            CypherStatements forDb = statements.get(db);
+            if (forDb == null)
+            {
+                forDb = new CypherStatements(db);
+                db.registerKernelEventHandler(forDb.new ForgetOnShutdown());
+                statements.put(db, forDb);
+            }
+            return forDb;
+        }
+    }
+
+    private CypherStatements(GraphDatabaseService db)
+    {
+        this.db = db;
+        this.engine = new ExecutionEngine(db);
+    }
+
+    public ExecutionResult execute(String query, Map<String, Object> parameters)
+    {
+        return engine.execute(query, parameters);
+    }
+
+    private class ForgetOnShutdown implements KernelEventHandler
+    {
+        public void beforeShutdown()
+        {
+            statements.remove(db);
+        }
+
+        public void kernelPanic(ErrorState error)
+        {
+        }
+
+        public Object getResource()
+        {
+            return null;
+        }
+
+        public ExecutionOrder orderComparedTo(KernelEventHandler other)
+        {
+            return ExecutionOrder.DOESNT_MATTER;
+        }
+    }
+}
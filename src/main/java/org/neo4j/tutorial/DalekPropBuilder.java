@@ -1,11 +1,12 @@
 package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.*;
-import org.neo4j.graphdb.index.Index;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.neo4j.tutorial.DatabaseHelper.ensureRelationshipInDb;
+
 public class DalekPropBuilder
 {
     private static final String PROP = "prop";
@@ -63,24 +64,21 @@ public class DalekPropBuilder
 
     public void fact(GraphDatabaseService db)
     {
-        Node dalekSpeciesNode = db.index()
-                                  .forNodes("species")
-                                  .get("species", "Dalek")
-                                  .getSingle();
+        Node dalekSpeciesNode = GenerationScope.of(db).lookup("species", "species", "Dalek");
 
         Node episodeNode = ensureEpisodeIsInDb(episode, db);
         ensureEpisodeIsConnectedToDalekSpecies(episodeNode, dalekSpeciesNode);
 
         Node episodePropsNode = db.createNode();
         episodePropsNode.setProperty(PROPS, "Daleks");
-        episodePropsNode.createRelationshipTo(episodeNode, DoctorWhoRelationships.USED_IN);
+        ensureRelationshipInDb(episodePropsNode, DoctorWhoRelationships.USED_IN, episodeNode, db);
 
         for (Prop prop : props)
         {
             if (isFullProp(prop))
             {
                 Node currentDalekPropNode = ensurePropAppearsInDb(prop.getName(), db);
-                currentDalekPropNode.createRelationshipTo(episodePropsNode, DoctorWhoRelationships.MEMBER_OF);
+                ensureRelationshipInDb(currentDalekPropNode, DoctorWhoRelationships.MEMBER_OF, episodePropsNode, db);
 
                 if (shoulderExists(prop))
                 {
@@ -106,40 +104,22 @@ public class DalekPropBuilder
             }
 
         }
+
+        GenerationScope.of(db).operationCompleted();
     }
 
     private void createPartAttachedToProp(String originalPropName, String part, Node currentDalekPropNode,
                                           GraphDatabaseService db)
     {
         Node partNode = ensurePartExistsInDb(originalPropName, part, db);
-        if (!relationshipExists(currentDalekPropNode, partNode, DoctorWhoRelationships.COMPOSED_OF, Direction.OUTGOING))
-        {
-            currentDalekPropNode.createRelationshipTo(partNode, DoctorWhoRelationships.COMPOSED_OF);
-        }
+        ensureRelationshipInDb(currentDalekPropNode, DoctorWhoRelationships.COMPOSED_OF, partNode, db);
     }
 
     private void createPartAttachedToPropGroup(String originalPropName, String part, Node propGroupNode,
                                                GraphDatabaseService db)
     {
         Node partNode = ensurePartExistsInDb(originalPropName, part, db);
-        if (!relationshipExists(partNode, propGroupNode, DoctorWhoRelationships.MEMBER_OF, Direction.OUTGOING))
-        {
-            partNode.createRelationshipTo(propGroupNode, DoctorWhoRelationships.MEMBER_OF);
-        }
-    }
-
-    private boolean relationshipExists(Node startNode, Node endNode, RelationshipType relationship, Direction direction)
-    {
-        Iterable<Relationship> rels = startNode.getRelationships(direction, relationship);
-        for (Relationship rel : rels)
-        {
-            if (rel.getOtherNode(startNode)
-                   .equals(endNode))
-            {
-                return true;
-            }
-        }
-        return false;
+        ensureRelationshipInDb(partNode, DoctorWhoRelationships.MEMBER_OF, propGroupNode, db);
     }
 
     private boolean skirtExists(Prop prop)
@@ -159,33 +139,29 @@ public class DalekPropBuilder
 
     private Node ensurePartExistsInDb(String originalPropName, String part, GraphDatabaseService db)
     {
-        Index<Node> index = db.index()
-                              .forNodes(PROPS);
-        Node shoulderNode = index.get(part, originalPropName)
-                                 .getSingle();
+        GenerationScope scope = GenerationScope.of(db);
+        Node shoulderNode = scope.lookup(PROPS, part, originalPropName);
         if (shoulderNode == null)
         {
             shoulderNode = db.createNode();
             shoulderNode.setProperty("part", part);
-            index.add(shoulderNode, part, originalPropName);
+            scope.index(shoulderNode, PROPS, part, originalPropName);
 
             Node originalDalekPropNode = ensurePropAppearsInDb(originalPropName, db);
-            shoulderNode.createRelationshipTo(originalDalekPropNode, DoctorWhoRelationships.ORIGINAL_PROP);
+            ensureRelationshipInDb(shoulderNode, DoctorWhoRelationships.ORIGINAL_PROP, originalDalekPropNode, db);
         }
         return shoulderNode;
     }
 
     private Node ensurePropAppearsInDb(String prop, GraphDatabaseService db)
     {
-        Index<Node> index = db.index()
-                              .forNodes(PROPS);
-        Node dalekPropNode = index.get(PROP, prop)
-                                  .getSingle();
+        GenerationScope scope = GenerationScope.of(db);
+        Node dalekPropNode = scope.lookup(PROPS, PROP, prop);
         if (dalekPropNode == null)
         {
             dalekPropNode = db.createNode();
             dalekPropNode.setProperty(PROP, prop);
-            index.add(dalekPropNode, PROP, prop);
+            scope.index(dalekPropNode, PROPS, PROP, prop);
         }
         return dalekPropNode;
     }
@@ -211,10 +187,7 @@ public class DalekPropBuilder
 
     private Node ensureEpisodeIsInDb(String episode, GraphDatabaseService db)
     {
-        Index<Node> index = db.index()
-                              .forNodes("episodes");
-        Node episodeNode = index.get("title", episode)
-                                .getSingle();
+        Node episodeNode = GenerationScope.of(db).lookup("episodes", "title", episode);
         if (episodeNode == null)
         {
             throw new RuntimeException("Episode '" + episode + "' missing from database.");
@@ -1,7 +1,6 @@
 package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Transaction;
 
 import static org.neo4j.tutorial.DalekPropBuilder.dalekProps;
 
@@ -17,7 +16,7 @@ public class DalekProps
 
     public void insert()
     {
-        Transaction tx = db.beginTx();
+        ChunkedTransaction tx = GenerationScope.of(db).beginTx();
         try
         {
             dalekProps("The Daleks").addProp("Dalek 1", "Dalek 1", "Dalek 1")
@@ -4,6 +4,7 @@ import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.kernel.EmbeddedGraphDatabase;
 import org.neo4j.tooling.GlobalGraphOperations;
+import org.neo4j.tutorial.batch.BatchInsertGraphDatabase;
 
 import java.io.File;
 import java.io.IOException;
@@ -30,6 +31,11 @@ public class DatabaseHelper
         return new EmbeddedGraphDatabase(dbDir);
     }
 
+    public static GraphDatabaseService createBatchInsertDatabase(String dbDir)
+    {
+        return new BatchInsertGraphDatabase(dbDir);
+    }
+
     public static File createTempDatabaseDir()
     {
 
@@ -78,6 +84,28 @@ public class DatabaseHelper
         ensureRelationshipInDb(startNode, relType, endNode, new HashMap<String, Object>());
     }
 
+    public static void ensureRelationshipInDb(Node startNode, RelationshipType relType, Node endNode, Map<String, Object> relationshipProperties, GraphDatabaseService db)
+    {
+        GenerationScope scope = GenerationScope.of(db);
+        if (!scope.relationships().claim(startNode, relType, endNode))
+        {
+            return;
+        }
+        scope.beforeWriting(startNode, endNode);
+
+        Relationship relationship = startNode.createRelationshipTo(endNode, relType);
+
+        for (String key : relationshipProperties.keySet())
+        {
+            relationship.setProperty(key, relationshipProperties.get(key));
+        }
+    }
+
+    public static void ensureRelationshipInDb(Node startNode, RelationshipType relType, Node endNode, GraphDatabaseService db)
+    {
+        ensureRelationshipInDb(startNode, relType, endNode, new HashMap<String, Object>(), db);
+    }
+
     public void dumpGraphToConsole()
     {
         for (Node n : GlobalGraphOperations.at(db).getAllNodes())
@@ -2,23 +2,127 @@ package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 
+import java.io.File;
+import java.io.IOException;
+
 public class DoctorWhoUniverseGenerator
 {
 
-    private final String dbDir = DatabaseHelper.createTempDatabaseDir()
-                                               .getAbsolutePath();
+    private final String dbDir;
+    private CommitReport commitReport;
 
     public DoctorWhoUniverseGenerator()
     {
-        GraphDatabaseService db = DatabaseHelper.createDatabase(dbDir);
-        addCharacters(db);
-        addActors(db);
-        addSpecies(db);
-        addPlanets(db);
-        addEpisodes(db);
-        addDalekProps(db);
-        db.shutdown();
+        dbDir = UniverseStoreCache.defaultCache().copyOfUniverse();
+    }
+
+    public DoctorWhoUniverseGenerator(IngestMode ingestMode)
+    {
+        this(ingestMode, CommitPolicy.singleTransaction());
+    }
+
+    public DoctorWhoUniverseGenerator(IngestMode ingestMode, CommitPolicy commitPolicy)
+    {
+        this(DatabaseHelper.createTempDatabaseDir()
+                           .getAbsolutePath(), ingestMode, commitPolicy);
+    }
+
+    DoctorWhoUniverseGenerator(String dbDir, IngestMode ingestMode, CommitPolicy commitPolicy)
+    {
+        this.dbDir = dbDir;
+        GraphDatabaseService db = ingestMode == IngestMode.BATCH_INSERT
+                ? DatabaseHelper.createBatchInsertDatabase(dbDir)
+                : DatabaseHelper.createDatabase(dbDir);
+        GenerationScope scope = GenerationScope.open(db, true, commitPolicy);
+        commitReport = scope.commitReport();
+        try
+        {
+            if (ingestMode == IngestMode.PARALLEL)
+            {
+                scope.allowConcurrentPhases();
+                parallelLoader(db).run();
+            } else
+            {
+                addCharacters(db);
+                addActors(db);
+                addSpecies(db);
+                addPlanets(db);
+                addEpisodes(db);
+                addDalekProps(db);
+            }
+            saveTimeline(scope.episodes().timeline());
+        } finally
+        {
+            scope.close();
+            db.shutdown();
+        }
     }
+
+    /**
+     * Shared nodes are handed between phases through the {@link GenerationScope}, so a phase only
+     * waits for another where it looks up something that must already be there: actors play the
+     * characters, the episodes' Doctor actors are found among everyone who played the Doctor, and
+     * the Dalek props belong to the Dalek species and its episodes.
+     */
+    private ParallelUniverseLoader parallelLoader(final GraphDatabaseService db)
+    {
+        return new ParallelUniverseLoader(Runtime.getRuntime().availableProcessors())
+                .phase("planets", new Runnable()
+                {
+                    public void run()
+                    {
+                        addPlanets(db);
+                    }
+                })
+                .phase("characters", new Runnable()
+                {
+                    public void run()
+                    {
+                        addCharacters(db);
+                    }
+                })
+                .phase("species", new Runnable()
+                {
+                    public void run()
+                    {
+                        addSpecies(db);
+                    }
+                })
+                .phase("actors", new Runnable()
+                {
+                    public void run()
+                    {
+                        addActors(db);
+                    }
+                }, "characters")
+                .phase("episodes", new Runnable()
+                {
+                    public void run()
+                    {
+                        addEpisodes(db);
+                    }
+                }, "actors")
+                .phase("dalekProps", new Runnable()
+                {
+                    public void run()
+                    {
+                        addDalekProps(db);
+                    }
+                }, "episodes", "species");
+    }
+
+    private void saveTimeline(EpisodeTimeline timeline)
+    {
+        File file = new File(dbDir, EpisodeTimeline.FILE_NAME);
+        try
+        {
+            timeline.save(file);
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to save the episode timeline to " + file.getAbsolutePath(), e);
+        }
+    }
+
     private void addActors(GraphDatabaseService db)
     {
         Actors actors = new Actors(db);
@@ -55,6 +159,14 @@ public class DoctorWhoUniverseGenerator
         dalekProps.insert();
     }
 
+    /**
+     * Commit latencies from generating this universe, or null if it was copied from the cache.
+     */
+    public CommitReport getCommitReport()
+    {
+        return commitReport;
+    }
+
     public final String getDatabaseDirectory()
     {
         return dbDir;
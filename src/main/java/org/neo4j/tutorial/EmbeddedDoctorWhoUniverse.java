@@ -8,10 +8,13 @@ public class EmbeddedDoctorWhoUniverse
 {
 
     private final EmbeddedGraphDatabase db;
+    private final String dbDir;
+    private EpisodeTimeline timeline;
 
     public EmbeddedDoctorWhoUniverse(DoctorWhoUniverseGenerator universe)
     {
-        db = new EmbeddedGraphDatabase(universe.getDatabaseDirectory());
+        dbDir = universe.getDatabaseDirectory();
+        db = new EmbeddedGraphDatabase(dbDir);
     }
 
     public Node theDoctor()
@@ -22,8 +25,25 @@ public class EmbeddedDoctorWhoUniverse
                  .getSingle();
     }
 
-    public void stop()
+    /**
+     * The episodes in order of the NEXT chain, kept up to date as episodes are added to its end.
+     */
+    public synchronized EpisodeTimeline timeline()
     {
+        if (timeline == null)
+        {
+            timeline = EpisodeTimeline.of(dbDir, db);
+            timeline.follow(db);
+        }
+        return timeline;
+    }
+
+    public synchronized void stop()
+    {
+        if (timeline != null)
+        {
+            timeline.unfollow();
+        }
         if (db != null)
         {
             db.shutdown();
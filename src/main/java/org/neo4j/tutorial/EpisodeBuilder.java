@@ -23,18 +23,11 @@ public class EpisodeBuilder
     private String[] allies;
     private List<String> alliedSpecies = new ArrayList<String>();
 
-    private static Node previousEpisode = null;
-
     public EpisodeBuilder(String episodeNumber)
     {
         this.episodeNumber = episodeNumber;
     }
 
-    public static void reset()
-    {
-        previousEpisode = null;
-    }
-
     public static EpisodeBuilder episode(int episodeNumber)
     {
         return new EpisodeBuilder(String.valueOf(episodeNumber));
@@ -97,7 +90,7 @@ public class EpisodeBuilder
             for (String companionName : companionNames)
             {
                 Node companionNode = CharacterBuilder.ensureCharacterIsInDb(companionName, db);
-                companionNode.createRelationshipTo(episode, DoctorWhoRelationships.APPEARED_IN);
+                ensureRelationshipInDb(companionNode, DoctorWhoRelationships.APPEARED_IN, episode, db);
                 ensureCompanionRelationshipInDb(companionNode, db);
             }
         }
@@ -107,7 +100,7 @@ public class EpisodeBuilder
             for (String eSpecies : enemySpecies)
             {
                 Node speciesNode = SpeciesBuilder.ensureSpeciesInDb(eSpecies, db);
-                speciesNode.createRelationshipTo(episode, DoctorWhoRelationships.APPEARED_IN);
+                ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.APPEARED_IN, episode, db);
                 ensureEnemyOfRelationshipInDb(speciesNode, db);
             }
         }
@@ -117,7 +110,7 @@ public class EpisodeBuilder
             for (String enemy : enemies)
             {
                 Node enemyNode = CharacterBuilder.ensureCharacterIsInDb(enemy, db);
-                enemyNode.createRelationshipTo(episode, DoctorWhoRelationships.APPEARED_IN);
+                ensureRelationshipInDb(enemyNode, DoctorWhoRelationships.APPEARED_IN, episode, db);
                 ensureEnemyOfRelationshipInDb(enemyNode, db);
             }
         }
@@ -127,7 +120,7 @@ public class EpisodeBuilder
             for (String ally : allies)
             {
                 Node allyNode = CharacterBuilder.ensureCharacterIsInDb(ally, db);
-                allyNode.createRelationshipTo(episode, DoctorWhoRelationships.APPEARED_IN);
+                ensureRelationshipInDb(allyNode, DoctorWhoRelationships.APPEARED_IN, episode, db);
                 ensureAllyOfRelationshipInDb(allyNode, db);
             }
         }
@@ -137,23 +130,14 @@ public class EpisodeBuilder
             for (String aSpecies : alliedSpecies)
             {
                 Node speciesNode = SpeciesBuilder.ensureSpeciesInDb(aSpecies, db);
-                speciesNode.createRelationshipTo(episode, DoctorWhoRelationships.APPEARED_IN);
+                ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.APPEARED_IN, episode, db);
                 ensureAllyOfRelationshipInDb(speciesNode, db);
             }
         }
 
-        linkToPrevious(episode, db);
-    }
-
-    private void linkToPrevious(Node episode, GraphDatabaseService db)
-    {
-        if (previousEpisode != null)
-        {
-            previousEpisode.createRelationshipTo(episode, DoctorWhoRelationships.NEXT);
-            episode.createRelationshipTo(previousEpisode, DoctorWhoRelationships.PREVIOUS);
-        }
-
-        previousEpisode = episode;
+        GenerationScope scope = GenerationScope.of(db);
+        scope.episodes().sequence(episodeNumber, episode, db);
+        scope.operationCompleted();
     }
 
     private void ensureDoctorActorsAreInDb(GraphDatabaseService db, Node episode)
@@ -163,17 +147,15 @@ public class EpisodeBuilder
             for (String actor : doctorActors)
             {
                 Node actorNode = ensureDoctorActorInDb(actor, db);
-                ensureRelationshipInDb(actorNode, DoctorWhoRelationships.APPEARED_IN, episode);
+                ensureRelationshipInDb(actorNode, DoctorWhoRelationships.APPEARED_IN, episode, db);
             }
         }
     }
 
     private Node ensureEpisodeNodeInDb(GraphDatabaseService db)
     {
-        Node episode = db.index()
-                         .forNodes("episodes")
-                         .get("title", this.title)
-                         .getSingle();
+        GenerationScope scope = GenerationScope.of(db);
+        Node episode = scope.lookup("episodes", "title", this.title);
 
         if (episode == null)
         {
@@ -182,12 +164,8 @@ public class EpisodeBuilder
             episode.setProperty("title", title);
         }
 
-        db.index()
-          .forNodes("episodes")
-          .add(episode, "title", title);
-        db.index()
-          .forNodes("episodes")
-          .add(episode, "episode", episodeNumber);
+        scope.index(episode, "episodes", "title", title);
+        scope.index(episode, "episodes", "episode", episodeNumber);
 
         return episode;
     }
@@ -207,10 +185,7 @@ public class EpisodeBuilder
 
     private Node ensureDoctorActorInDb(String doctorActor, GraphDatabaseService db)
     {
-        Node theDoctor = db.index()
-                           .forNodes("characters")
-                           .get("character", "Doctor")
-                           .getSingle();
+        Node theDoctor = GenerationScope.of(db).lookup("characters", "character", "Doctor");
         Iterable<Relationship> relationships = theDoctor.getRelationships(DoctorWhoRelationships.PLAYED,
                                                                           Direction.INCOMING);
 
@@ -226,10 +201,8 @@ public class EpisodeBuilder
 
         Node doctorActorNode = db.createNode();
         doctorActorNode.setProperty("actor", doctorActor);
-        doctorActorNode.createRelationshipTo(theDoctor, DoctorWhoRelationships.PLAYED);
-        db.index()
-          .forNodes("actors")
-          .add(doctorActorNode, "actor", doctorActor);
+        ensureRelationshipInDb(doctorActorNode, DoctorWhoRelationships.PLAYED, theDoctor, db);
+        GenerationScope.of(db).index(doctorActorNode, "actors", "actor", doctorActor);
         return doctorActorNode;
     }
 
@@ -0,0 +1,187 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chains the episodes of a generation together with NEXT and PREVIOUS relationships. By default
+ * each episode is linked to the one sequenced before it as it arrives. When sorting by episode
+ * number, the episodes are linked in order of their number when the sequence is finished, so they
+ * can arrive in any order; episodes that share a number keep their order of arrival.
+ * <p/>
+ * There is one sequencer per {@link GenerationScope}, so generators loading different databases
+ * never interleave their chains. When a transaction rolls back, only the episodes it took with it
+ * are forgotten, and the chain carries on from the last episode that is still there.
+ */
+public class EpisodeSequencer
+{
+    private final List<SequencedEpisode> episodes = new ArrayList<SequencedEpisode>();
+    private final Set<Long> sequenced = new HashSet<Long>();
+    private boolean sortedByEpisodeNumber = false;
+    private long previousEpisode = -1;
+    private EpisodeTimeline timeline = new EpisodeTimeline();
+
+    public synchronized void setSortedByEpisodeNumber(boolean sortedByEpisodeNumber)
+    {
+        if (!episodes.isEmpty())
+        {
+            throw new IllegalStateException("Episodes have already been sequenced");
+        }
+        this.sortedByEpisodeNumber = sortedByEpisodeNumber;
+    }
+
+    public synchronized void sequence(String episodeNumber, Node episode, GraphDatabaseService db)
+    {
+        if (!sequenced.add(episode.getId()))
+        {
+            return;
+        }
+        if (episodes.isEmpty())
+        {
+            timeline = new EpisodeTimeline();
+        }
+        episodes.add(new SequencedEpisode(episodeNumber, episode.getId()));
+
+        if (!sortedByEpisodeNumber)
+        {
+            if (previousEpisode != -1)
+            {
+                link(db.getNodeById(previousEpisode), episode, db);
+            }
+            previousEpisode = episode.getId();
+            timeline.append(episodeNumber, episode.getId());
+        }
+    }
+
+    /**
+     * Links any episodes still waiting to be linked and starts a new, empty sequence.
+     */
+    public synchronized void finish(GraphDatabaseService db)
+    {
+        try
+        {
+            if (sortedByEpisodeNumber)
+            {
+                List<SequencedEpisode> inOrder = new ArrayList<SequencedEpisode>(episodes);
+                Collections.sort(inOrder, BY_EPISODE_NUMBER);
+                Node previous = null;
+                for (SequencedEpisode sequencedEpisode : inOrder)
+                {
+                    Node episode = db.getNodeById(sequencedEpisode.nodeId);
+                    if (previous != null)
+                    {
+                        link(previous, episode, db);
+                        GenerationScope.of(db).operationCompleted();
+                    }
+                    previous = episode;
+                    timeline.append(sequencedEpisode.episodeNumber, sequencedEpisode.nodeId);
+                }
+            }
+        } finally
+        {
+            clear();
+        }
+    }
+
+    /**
+     * The timeline of the episodes sequenced so far, or of the last finished sequence.
+     */
+    public synchronized EpisodeTimeline timeline()
+    {
+        return timeline;
+    }
+
+    public synchronized void clear()
+    {
+        episodes.clear();
+        sequenced.clear();
+        previousEpisode = -1;
+        sortedByEpisodeNumber = false;
+    }
+
+    /**
+     * Forgets the episodes that a rolled back transaction took with it.
+     */
+    synchronized void rolledBack(GraphDatabaseService db)
+    {
+        boolean forgotten = false;
+        for (Iterator<SequencedEpisode> it = episodes.iterator(); it.hasNext(); )
+        {
+            SequencedEpisode episode = it.next();
+            if (!exists(episode.nodeId, db))
+            {
+                it.remove();
+                sequenced.remove(episode.nodeId);
+                forgotten = true;
+            }
+        }
+        if (!forgotten || sortedByEpisodeNumber)
+        {
+            return;
+        }
+
+        previousEpisode = episodes.isEmpty() ? -1 : episodes.get(episodes.size() - 1).nodeId;
+        timeline = new EpisodeTimeline();
+        for (SequencedEpisode episode : episodes)
+        {
+            timeline.append(episode.episodeNumber, episode.nodeId);
+        }
+    }
+
+    private static boolean exists(long nodeId, GraphDatabaseService db)
+    {
+        try
+        {
+            db.getNodeById(nodeId);
+            return true;
+        } catch (NotFoundException e)
+        {
+            return false;
+        }
+    }
+
+    private static void link(Node previous, Node episode, GraphDatabaseService db)
+    {
+        DatabaseHelper.ensureRelationshipInDb(previous, DoctorWhoRelationships.NEXT, episode, db);
+        DatabaseHelper.ensureRelationshipInDb(episode, DoctorWhoRelationships.PREVIOUS, previous, db);
+    }
+
+    /**
+     * Orders episode numbers such as "218", "218a" and "218b" the way the {@link EpisodeTimeline}
+     * does. Episode numbers that don't start with a number go last.
+     */
+    static final Comparator<SequencedEpisode> BY_EPISODE_NUMBER = new Comparator<SequencedEpisode>()
+    {
+        public int compare(SequencedEpisode first, SequencedEpisode second)
+        {
+            if (first.episodeKey != second.episodeKey)
+            {
+                return first.episodeKey < second.episodeKey ? -1 : 1;
+            }
+            return first.episodeNumber.compareTo(second.episodeNumber);
+        }
+    };
+
+    static class SequencedEpisode
+    {
+        private final String episodeNumber;
+        private final long episodeKey;
+        private final long nodeId;
+
+        SequencedEpisode(String episodeNumber, long nodeId)
+        {
+            this.episodeNumber = episodeNumber;
+            this.episodeKey = EpisodeTimeline.episodeKey(episodeNumber);
+            this.nodeId = nodeId;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The episodes of a universe in the order of their NEXT chain, held in primitive arrays so that
+ * the nth episode, the distance between two episodes and the episodes in a range of episode numbers
+ * can be found with a binary search instead of walking the chain one hop at a time.
+ * <p/>
+ * The generator writes the timeline into the store directory as it links the episodes. A store
+ * without one, such as an imported universe, or whose saved timeline no longer agrees with the
+ * chain, has its timeline rebuilt from the chain. Once {@link #follow(GraphDatabaseService)} has
+ * been called the timeline keeps up with the chain of an open database: appended episodes are
+ * added to its end, and any other change to the chain rebuilds it.
+ */
+public class EpisodeTimeline
+{
+    public static final String FILE_NAME = "episode-timeline";
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final long UNNUMBERED = Long.MAX_VALUE >> 16;
+
+    private long[] nodeIds = new long[INITIAL_CAPACITY];
+    private long[] episodeKeys = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // positions on the timeline, ordered by episode key and by node id
+    private int[] byEpisodeKey = new int[INITIAL_CAPACITY];
+    private int[] byNodeId = new int[INITIAL_CAPACITY];
+
+    private GraphDatabaseService followed;
+    private FollowChain follower;
+
+    /**
+     * The timeline saved in the given store directory, or the one rebuilt from the database's
+     * NEXT chain if none was saved, it cannot be read or it no longer matches the chain.
+     */
+    public static EpisodeTimeline of(String storeDir, GraphDatabaseService db)
+    {
+        File file = new File(storeDir, FILE_NAME);
+        if (file.isFile())
+        {
+            try
+            {
+                EpisodeTimeline timeline = load(file);
+                if (timeline.matchesChain(db))
+                {
+                    return timeline;
+                }
+            } catch (IOException e)
+            {
+                // An unreadable timeline is rebuilt, just like a missing one
+            }
+        }
+        return fromChain(db);
+    }
+
+    /**
+     * Whether this timeline has as many episodes as the database and starts and ends where the
+     * NEXT chain does, with the same episode numbers at either end.
+     */
+    synchronized boolean matchesChain(GraphDatabaseService db)
+    {
+        int episodes = 0;
+        for (Node ignored : db.index()
+                              .forNodes("episodes")
+                              .query("episode", "*"))
+        {
+            episodes++;
+        }
+        if (episodes != size)
+        {
+            return false;
+        }
+        if (size == 0)
+        {
+            return true;
+        }
+
+        try
+        {
+            Node first = db.getNodeById(nodeIds[0]);
+            Node last = db.getNodeById(nodeIds[size - 1]);
+            return !first.hasRelationship(DoctorWhoRelationships.NEXT, Direction.INCOMING)
+                    && !last.hasRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING)
+                    && isEpisode(first, episodeKeys[0])
+                    && isEpisode(last, episodeKeys[size - 1]);
+        } catch (NotFoundException e)
+        {
+            return false;
+        }
+    }
+
+    private static boolean isEpisode(Node node, long episodeKey)
+    {
+        return node.hasProperty("episode") && episodeKey(String.valueOf(node.getProperty("episode"))) == episodeKey;
+    }
+
+    public static EpisodeTimeline fromChain(GraphDatabaseService db)
+    {
+        EpisodeTimeline timeline = new EpisodeTimeline();
+        Node episode = firstEpisode(db);
+        while (episode != null)
+        {
+            timeline.append(String.valueOf(episode.getProperty("episode")), episode.getId());
+            Relationship next = episode.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING);
+            episode = next == null ? null : next.getEndNode();
+        }
+        return timeline;
+    }
+
+    private static Node firstEpisode(GraphDatabaseService db)
+    {
+        for (Node episode : db.index()
+                              .forNodes("episodes")
+                              .query("episode", "*"))
+        {
+            while (episode.hasRelationship(DoctorWhoRelationships.PREVIOUS, Direction.OUTGOING))
+            {
+                episode = episode.getSingleRelationship(DoctorWhoRelationships.PREVIOUS, Direction.OUTGOING)
+                                 .getEndNode();
+            }
+            return episode;
+        }
+        return null;
+    }
+
+    static EpisodeTimeline load(File file) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try
+        {
+            EpisodeTimeline timeline = new EpisodeTimeline();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                long episodeKey = in.readLong();
+                timeline.append(episodeKey, in.readLong());
+            }
+            return timeline;
+        } finally
+        {
+            in.close();
+        }
+    }
+
+    public synchronized void save(File file) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++)
+            {
+                out.writeLong(episodeKeys[i]);
+                out.writeLong(nodeIds[i]);
+            }
+        } finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Keeps this timeline up to date with the NEXT chain of the given database, until
+     * {@link #unfollow()} is called.
+     */
+    public synchronized void follow(GraphDatabaseService db)
+    {
+        if (follower != null)
+        {
+            throw new IllegalStateException("The timeline already follows a database");
+        }
+        follower = new FollowChain(db);
+        followed = db;
+        db.registerTransactionEventHandler(follower);
+    }
+
+    public synchronized void unfollow()
+    {
+        if (follower != null)
+        {
+            followed.unregisterTransactionEventHandler(follower);
+            follower = null;
+            followed = null;
+        }
+    }
+
+    public synchronized void append(String episodeNumber, long nodeId)
+    {
+        append(episodeKey(episodeNumber), nodeId);
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * The node id of the episode at the given position, counting from 0.
+     */
+    public synchronized long episodeAt(int position)
+    {
+        if (position < 0 || position >= size)
+        {
+            throw new IndexOutOfBoundsException(String.format("No episode at [%d] on a timeline of [%d]", position,
+                    size));
+        }
+        return nodeIds[position];
+    }
+
+    /**
+     * The position of the episode with the given node id, or -1 if it is not on the timeline.
+     */
+    public synchronized int positionOf(long nodeId)
+    {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            long midId = nodeIds[byNodeId[mid]];
+            if (midId < nodeId)
+            {
+                low = mid + 1;
+            } else if (midId > nodeId)
+            {
+                high = mid - 1;
+            } else
+            {
+                return byNodeId[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The number of NEXT hops from one episode to the other, negative if the second comes first.
+     */
+    public synchronized int distance(long fromNodeId, long toNodeId)
+    {
+        int from = positionOf(fromNodeId);
+        int to = positionOf(toNodeId);
+        if (from == -1 || to == -1)
+        {
+            throw new IllegalArgumentException(String.format("Episodes [%d] and [%d] are not both on the timeline",
+                    fromNodeId, toNodeId));
+        }
+        return to - from;
+    }
+
+    /**
+     * The node ids of the episodes numbered from the first number to the second, both inclusive, in
+     * order of episode number. Episode "135" includes the parts "135a" and "135b".
+     */
+    public synchronized long[] episodesNumbered(String from, String to)
+    {
+        int start = firstWithKeyAtLeast(episodeKey(from));
+        long lastKey = lastKeyOf(to);
+        int end = lastKey == Long.MAX_VALUE ? size : firstWithKeyAtLeast(lastKey + 1);
+        long[] result = new long[Math.max(0, end - start)];
+        for (int i = start; i < end; i++)
+        {
+            result[i - start] = nodeIds[byEpisodeKey[i]];
+        }
+        return result;
+    }
+
+    private int firstWithKeyAtLeast(long episodeKey)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (episodeKeys[byEpisodeKey[mid]] < episodeKey)
+            {
+                low = mid + 1;
+            } else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private synchronized void rebuildFrom(GraphDatabaseService db)
+    {
+        EpisodeTimeline rebuilt = fromChain(db);
+        nodeIds = rebuilt.nodeIds;
+        episodeKeys = rebuilt.episodeKeys;
+        byEpisodeKey = rebuilt.byEpisodeKey;
+        byNodeId = rebuilt.byNodeId;
+        size = rebuilt.size;
+    }
+
+    private void append(long episodeKey, long nodeId)
+    {
+        if (size == nodeIds.length)
+        {
+            int capacity = size * 2;
+            nodeIds = Arrays.copyOf(nodeIds, capacity);
+            episodeKeys = Arrays.copyOf(episodeKeys, capacity);
+            byEpisodeKey = Arrays.copyOf(byEpisodeKey, capacity);
+            byNodeId = Arrays.copyOf(byNodeId, capacity);
+        }
+        int position = size;
+        nodeIds[position] = nodeId;
+        episodeKeys[position] = episodeKey;
+
+        // episodes sharing a key keep their timeline order, so insert after any equal keys
+        int keySlot = episodeKey == Long.MAX_VALUE ? size : firstWithKeyAtLeast(episodeKey + 1);
+        System.arraycopy(byEpisodeKey, keySlot, byEpisodeKey, keySlot + 1, size - keySlot);
+        byEpisodeKey[keySlot] = position;
+
+        int idSlot = 0;
+        int high = size;
+        while (idSlot < high)
+        {
+            int mid = (idSlot + high) >>> 1;
+            if (nodeIds[byNodeId[mid]] < nodeId)
+            {
+                idSlot = mid + 1;
+            } else
+            {
+                high = mid;
+            }
+        }
+        System.arraycopy(byNodeId, idSlot, byNodeId, idSlot + 1, size - idSlot);
+        byNodeId[idSlot] = position;
+
+        size++;
+    }
+
+    /**
+     * Packs an episode number such as "218b" into a long that sorts like the episode numbers do:
+     * the leading number in the high bits and the first character after it in the low 16 bits.
+     */
+    static long episodeKey(String episodeNumber)
+    {
+        String trimmed = episodeNumber.trim();
+        int digits = 0;
+        while (digits < trimmed.length() && digits < 14 && Character.isDigit(trimmed.charAt(digits)))
+        {
+            digits++;
+        }
+        long number = digits == 0 ? UNNUMBERED : Long.parseLong(trimmed.substring(0, digits));
+        char part = digits < trimmed.length() ? trimmed.charAt(digits) : 0;
+        return (number << 16) | part;
+    }
+
+    private static long lastKeyOf(String episodeNumber)
+    {
+        long episodeKey = episodeKey(episodeNumber);
+        return (episodeKey & 0xFFFF) == 0 ? episodeKey | 0xFFFF : episodeKey;
+    }
+
+    /**
+     * Appends episodes linked onto the end of the chain, and rebuilds the timeline when a
+     * transaction changes the chain in any other way. Whether it did is decided before the commit,
+     * while deleted relationships can still be read.
+     */
+    private class FollowChain implements TransactionEventHandler<Boolean>
+    {
+        private final GraphDatabaseService db;
+
+        FollowChain(GraphDatabaseService db)
+        {
+            this.db = db;
+        }
+
+        public Boolean beforeCommit(TransactionData data) throws Exception
+        {
+            for (Relationship relationship : data.deletedRelationships())
+            {
+                if (relationship.isType(DoctorWhoRelationships.NEXT))
+                {
+                    return true;
+                }
+            }
+            for (Node node : data.deletedNodes())
+            {
+                if (positionOf(node.getId()) != -1)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void afterCommit(TransactionData data, Boolean chainChanged)
+        {
+            List<Relationship> links = new ArrayList<Relationship>();
+            for (Relationship relationship : data.createdRelationships())
+            {
+                if (relationship.isType(DoctorWhoRelationships.NEXT))
+                {
+                    links.add(relationship);
+                }
+            }
+            if (chainChanged)
+            {
+                rebuildFrom(db);
+                return;
+            }
+
+            // a transaction may link several episodes, in no particular order
+            boolean appended = true;
+            while (appended)
+            {
+                appended = false;
+                for (Iterator<Relationship> it = links.iterator(); it.hasNext(); )
+                {
+                    Relationship link = it.next();
+                    if (appendIfLast(link.getStartNode(), link.getEndNode()))
+                    {
+                        it.remove();
+                        appended = true;
+                    }
+                }
+            }
+
+            // a link that did not extend the end of the chain was inserted somewhere else
+            if (!links.isEmpty())
+            {
+                rebuildFrom(db);
+            }
+        }
+
+        public void afterRollback(TransactionData data, Boolean chainChanged)
+        {
+        }
+
+        private boolean appendIfLast(Node previous, Node episode)
+        {
+            synchronized (EpisodeTimeline.this)
+            {
+                if (size > 0 && nodeIds[size - 1] == previous.getId() && positionOf(episode.getId()) == -1)
+                {
+                    append(String.valueOf(episode.getProperty("episode")), episode.getId());
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Transaction;
 
 import static org.neo4j.tutorial.EpisodeBuilder.episode;
 
@@ -17,7 +16,7 @@ public class Episodes
 
     public void insert()
     {
-        Transaction tx = db.beginTx();
+        ChunkedTransaction tx = GenerationScope.of(db).beginTx();
         try
         {
             season01();
@@ -93,7 +92,7 @@ public class Episodes
                     .alliedSpecies("human")
                     .fact(db);
             
-            EpisodeBuilder.reset();
+            GenerationScope.of(db).episodes().finish(db);
             
             tx.success();
         } finally
@@ -0,0 +1,465 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State shared by all of the builders while a universe is being generated into a database.
+ * <p/>
+ * Builders resolve names to nodes through {@link #lookup(String, String, Object)} and index new
+ * nodes through {@link #index(Node, String, String, Object)}, so that after the first sighting
+ * every (index, key, value) resolves from memory instead of lucene. When the scope was opened on
+ * an empty store it has seen every index entry, and a miss is final without asking lucene.
+ * Relationships ensured through {@link DatabaseHelper} are deduplicated against the scope too.
+ * A rolled back transaction may have taken cached entities with it, so rollback clears the scope.
+ * Neo4j only reports rollbacks of transactions that tried to commit, so the scope hears about
+ * rollbacks from {@link ChunkedTransaction}, and a cached node that has disappeared, because a
+ * plain {@link org.neo4j.graphdb.Transaction} rolled it back, clears the scope when it is looked up.
+ * <p/>
+ * Nodes that several builders share, such as the Doctor or the Daleks, are created through
+ * {@link #getOrCreate(String, String, Object)} under a lock striped by name, so that concurrent
+ * phases create each of them exactly once.
+ * <p/>
+ * When phases run concurrently, a node cached by a batch that has not committed yet is invisible
+ * to the other threads' transactions, so a thread that looks it up waits for that batch to commit.
+ * Creating a relationship write-locks both of its nodes, so writes to nodes that the batch in
+ * progress did not create are serialized: the batch takes a write token first and keeps it until
+ * it commits. A thread always commits its own batch before it waits for either, so it never holds
+ * anything that the thread it waits for could need.
+ */
+public class GenerationScope
+{
+    private static final int CREATION_LOCK_STRIPES = 64;
+
+    private static final Map<GraphDatabaseService, GenerationScope> openScopes = Collections.synchronizedMap(
+            new IdentityHashMap<GraphDatabaseService, GenerationScope>());
+    private static final Map<GraphDatabaseService, EpisodeSequencer> unscopedEpisodes = Collections.synchronizedMap(
+            new WeakHashMap<GraphDatabaseService, EpisodeSequencer>());
+
+    private final GraphDatabaseService db;
+    private final Map<String, Long> nodeIds = new ConcurrentHashMap<String, Long>();
+    private final RelationshipDeduplicator relationships = new RelationshipDeduplicator();
+    private final EpisodeSequencer episodes;
+    private final TransactionEventHandler<Void> rollbackListener = new InvalidateOnRollback();
+    private final ThreadLocal<ChunkedTransaction> currentTransaction = new ThreadLocal<ChunkedTransaction>();
+    private final CommitPolicy commitPolicy;
+    private final CommitReport commitReport = new CommitReport();
+    private final Object[] creationLocks = new Object[CREATION_LOCK_STRIPES];
+    private final Object handoff = new Object();
+    private final Map<Long, ChunkedTransaction> unpublished = new HashMap<Long, ChunkedTransaction>();
+    private final Map<ChunkedTransaction, List<Long>> unpublishedBy = new IdentityHashMap<ChunkedTransaction, List<Long>>();
+    private ChunkedTransaction writer;
+    private volatile boolean authoritative;
+    private volatile boolean concurrent;
+
+    public static GenerationScope open(GraphDatabaseService db, boolean emptyStore)
+    {
+        return open(db, emptyStore, CommitPolicy.singleTransaction());
+    }
+
+    public static GenerationScope open(GraphDatabaseService db, boolean emptyStore, CommitPolicy commitPolicy)
+    {
+        GenerationScope scope = new GenerationScope(db, emptyStore, commitPolicy, new EpisodeSequencer());
+        if (openScopes.put(db, scope) != null)
+        {
+            throw new IllegalStateException("A universe is already being generated into this database");
+        }
+        db.registerTransactionEventHandler(scope.rollbackListener);
+        return scope;
+    }
+
+    public static boolean isOpen(GraphDatabaseService db)
+    {
+        return openScopes.containsKey(db);
+    }
+
+    /**
+     * The scope of the generation running against the given database, or a throwaway scope that
+     * caches nothing beyond the current call when there is no generation running. Throwaway scopes
+     * of a database share one {@link EpisodeSequencer}, so that episodes built one at a time are
+     * still chained together.
+     */
+    public static GenerationScope of(GraphDatabaseService db)
+    {
+        GenerationScope scope = openScopes.get(db);
+        if (scope == null)
+        {
+            return new GenerationScope(db, false, CommitPolicy.singleTransaction(), unscopedEpisodesOf(db));
+        }
+        return scope;
+    }
+
+    private static EpisodeSequencer unscopedEpisodesOf(GraphDatabaseService db)
+    {
+        synchronized (unscopedEpisodes)
+        {
+            EpisodeSequencer sequencer = unscopedEpisodes.get(db);
+            if (sequencer == null)
+            {
+                sequencer = new EpisodeSequencer();
+                unscopedEpisodes.put(db, sequencer);
+            }
+            return sequencer;
+        }
+    }
+
+    private GenerationScope(GraphDatabaseService db, boolean authoritative, CommitPolicy commitPolicy,
+                            EpisodeSequencer episodes)
+    {
+        this.db = db;
+        this.authoritative = authoritative;
+        this.commitPolicy = commitPolicy;
+        this.episodes = episodes;
+        for (int i = 0; i < creationLocks.length; i++)
+        {
+            creationLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Allows builders on several threads to share this scope. Each thread is expected to do its
+     * work in one {@link ChunkedTransaction} at a time, begun through {@link #beginTx()}.
+     */
+    void allowConcurrentPhases()
+    {
+        concurrent = true;
+    }
+
+    /**
+     * Begins a transaction that commits as often as this scope's {@link CommitPolicy} says.
+     */
+    public ChunkedTransaction beginTx()
+    {
+        return beginTx(commitPolicy);
+    }
+
+    public ChunkedTransaction beginTx(CommitPolicy policy)
+    {
+        ChunkedTransaction tx = new ChunkedTransaction(db, policy, commitReport, this, currentTransaction.get());
+        currentTransaction.set(tx);
+        return tx;
+    }
+
+    void transactionFinished(ChunkedTransaction tx, ChunkedTransaction outer)
+    {
+        if (currentTransaction.get() == tx)
+        {
+            currentTransaction.set(outer);
+        }
+    }
+
+    /**
+     * Called by the builders after each fact, so that the current transaction can commit when its
+     * batch is full.
+     */
+    public void operationCompleted()
+    {
+        ChunkedTransaction tx = currentTransaction.get();
+        if (tx != null)
+        {
+            tx.operationCompleted();
+        }
+    }
+
+    public CommitReport commitReport()
+    {
+        return commitReport;
+    }
+
+    public Node lookup(String indexName, String key, Object value)
+    {
+        String cacheKey = cacheKey(indexName, key, value);
+        Long id = nodeIds.get(cacheKey);
+        if (id != null)
+        {
+            awaitPublished(id);
+            try
+            {
+                return db.getNodeById(id);
+            } catch (NotFoundException e)
+            {
+                invalidate();
+            }
+        }
+        if (authoritative)
+        {
+            return null;
+        }
+
+        Node node = db.index()
+                      .forNodes(indexName)
+                      .get(key, value)
+                      .getSingle();
+        if (node != null)
+        {
+            nodeIds.put(cacheKey, node.getId());
+        }
+        return node;
+    }
+
+    /**
+     * The node indexed under the given (index, key, value), created with the value as its key
+     * property if there isn't one yet.
+     */
+    public Node getOrCreate(String indexName, String key, Object value)
+    {
+        Node node = lookup(indexName, key, value);
+        if (node != null)
+        {
+            return node;
+        }
+
+        String cacheKey = cacheKey(indexName, key, value);
+        synchronized (creationLocks[(cacheKey.hashCode() & 0x7fffffff) % creationLocks.length])
+        {
+            // another thread may have created it since, and its batch may not have committed, so
+            // only create it here and wait for it outside of the lock
+            if (!nodeIds.containsKey(cacheKey))
+            {
+                node = db.createNode();
+                node.setProperty(key, value);
+                db.index()
+                  .forNodes(indexName)
+                  .add(node, key, value);
+                createdInCurrentTransaction(node);
+                nodeIds.put(cacheKey, node.getId());
+                return node;
+            }
+        }
+        return lookup(indexName, key, value);
+    }
+
+    public void index(Node node, String indexName, String key, Object value)
+    {
+        db.index()
+          .forNodes(indexName)
+          .add(node, key, value);
+        String cacheKey = cacheKey(indexName, key, value);
+        if (!nodeIds.containsKey(cacheKey))
+        {
+            createdInCurrentTransaction(node);
+            nodeIds.put(cacheKey, node.getId());
+        }
+    }
+
+    /**
+     * Called before a builder writes to nodes that may already be committed, such as by relating
+     * them or setting their properties. When phases run concurrently, the batch in progress takes
+     * the write token unless it created all of the nodes itself.
+     */
+    public void beforeWriting(Node... nodes)
+    {
+        ChunkedTransaction tx = currentTransaction.get();
+        if (!concurrent || tx == null)
+        {
+            return;
+        }
+        synchronized (handoff)
+        {
+            if (writer == tx || createdBy(tx, nodes))
+            {
+                return;
+            }
+            if (writer == null)
+            {
+                writer = tx;
+                return;
+            }
+        }
+
+        tx.commitNow();
+        synchronized (handoff)
+        {
+            while (writer != null)
+            {
+                awaitHandoff();
+            }
+            writer = tx;
+        }
+    }
+
+    private boolean createdBy(ChunkedTransaction tx, Node[] nodes)
+    {
+        for (Node node : nodes)
+        {
+            if (unpublished.get(node.getId()) != tx)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void createdInCurrentTransaction(Node node)
+    {
+        ChunkedTransaction tx = currentTransaction.get();
+        if (!concurrent || tx == null)
+        {
+            return;
+        }
+        synchronized (handoff)
+        {
+            if (!unpublished.containsKey(node.getId()))
+            {
+                unpublished.put(node.getId(), tx);
+                List<Long> ids = unpublishedBy.get(tx);
+                if (ids == null)
+                {
+                    ids = new ArrayList<Long>();
+                    unpublishedBy.put(tx, ids);
+                }
+                ids.add(node.getId());
+            }
+        }
+    }
+
+    private void awaitPublished(long id)
+    {
+        if (!concurrent)
+        {
+            return;
+        }
+        ChunkedTransaction tx = currentTransaction.get();
+        synchronized (handoff)
+        {
+            ChunkedTransaction owner = unpublished.get(id);
+            if (owner == null || owner == tx)
+            {
+                return;
+            }
+        }
+
+        if (tx != null)
+        {
+            tx.commitNow();
+        }
+        synchronized (handoff)
+        {
+            while (unpublished.containsKey(id))
+            {
+                awaitHandoff();
+            }
+        }
+    }
+
+    private void awaitHandoff()
+    {
+        try
+        {
+            handoff.wait();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                  .interrupt();
+            throw new IllegalStateException("Interrupted while waiting for another phase to commit", e);
+        }
+    }
+
+    /**
+     * Called when a batch of the given transaction has committed, which publishes the nodes it
+     * created and hands on the write token.
+     */
+    void committed(ChunkedTransaction tx)
+    {
+        if (concurrent)
+        {
+            release(tx);
+        }
+    }
+
+    RelationshipDeduplicator relationships()
+    {
+        return relationships;
+    }
+
+    public EpisodeSequencer episodes()
+    {
+        return episodes;
+    }
+
+    public void close()
+    {
+        db.unregisterTransactionEventHandler(rollbackListener);
+        openScopes.remove(db);
+        nodeIds.clear();
+        relationships.clear();
+        episodes.clear();
+    }
+
+    /**
+     * Called when a batch of the given transaction has rolled back.
+     */
+    void rolledBack(ChunkedTransaction tx)
+    {
+        invalidate();
+        if (concurrent)
+        {
+            release(tx);
+        }
+    }
+
+    private void release(ChunkedTransaction tx)
+    {
+        synchronized (handoff)
+        {
+            List<Long> ids = unpublishedBy.remove(tx);
+            if (ids != null)
+            {
+                for (Long id : ids)
+                {
+                    unpublished.remove(id);
+                }
+            }
+            if (writer == tx)
+            {
+                writer = null;
+            }
+            handoff.notifyAll();
+        }
+    }
+
+    private void invalidate()
+    {
+        authoritative = false;
+        nodeIds.clear();
+        relationships.clear();
+        episodes.rolledBack(db);
+    }
+
+    private static String cacheKey(String indexName, String key, Object value)
+    {
+        return indexName + '\u0000' + key + '\u0000' + value;
+    }
+
+    /**
+     * Hears about transactions that rolled back while committing, such as when a handler vetoed them.
+     */
+    private class InvalidateOnRollback implements TransactionEventHandler<Void>
+    {
+        public Void beforeCommit(TransactionData data) throws Exception
+        {
+            return null;
+        }
+
+        public void afterCommit(TransactionData data, Void state)
+        {
+        }
+
+        public void afterRollback(TransactionData data, Void state)
+        {
+            invalidate();
+        }
+    }
+}
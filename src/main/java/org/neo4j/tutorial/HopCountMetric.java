@@ -0,0 +1,16 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+/**
+ * The original rating: 100/(hops+1) over relationships of any type, up to
+ * {@link AwesomenessRatingEngine#MAX_HOPS} hops from the Doctor.
+ */
+public class HopCountMetric implements AwesomenessMetric
+{
+    public LongDoubleMap rateEverything(GraphDatabaseService db, Node theDoctor)
+    {
+        return new AwesomenessRatingEngine().rateAwesomenessOfEverything(db, theDoctor);
+    }
+}
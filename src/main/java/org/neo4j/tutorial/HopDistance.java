@@ -0,0 +1,17 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * Measures how many relationships, in either direction, separate two nodes.
+ */
+public interface HopDistance
+{
+    int UNREACHABLE = -1;
+
+    /**
+     * @return the number of hops between the nodes, or {@link #UNREACHABLE} if they are more than
+     *         maxHops apart
+     */
+    int hops(GraphDatabaseService db, long fromNodeId, long toNodeId, int maxHops);
+}
@@ -0,0 +1,8 @@
+package org.neo4j.tutorial;
+
+public enum IngestMode
+{
+    TRANSACTIONAL,
+    PARALLEL,
+    BATCH_INSERT
+}
@@ -0,0 +1,210 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the hop distance between any two nodes from their distances to a few well connected
+ * landmarks, computed once with a breadth first search from each landmark and kept in a byte per
+ * node. By the triangle inequality the distance between two nodes is at least the difference of
+ * their distances to any landmark, and at most the sum, so both bounds take one array read per
+ * landmark. Only when the bounds disagree does {@link #distance(long, long)} search the graph, and
+ * then no further than the upper bound.
+ * <p/>
+ * The oracle describes the graph as it was when it was built. Nodes created since have no landmark
+ * distances, and are always searched.
+ */
+public class LandmarkDistanceOracle
+{
+    public static final int UNKNOWN = -1;
+
+    private static final byte UNREACHED = -1;
+    private static final byte FAR = Byte.MAX_VALUE;
+
+    private final GraphDatabaseService db;
+    private final byte[][] distances;
+    private final int maxSearchHops;
+    private final HopDistance exact = new BidirectionalHopDistance();
+
+    /**
+     * An oracle with the Doctor, the Master, the Daleks and Gallifrey as landmarks, falling back to a
+     * search of up to {@link AwesomenessRatingEngine#MAX_HOPS} hops for nodes they say nothing about.
+     */
+    public static LandmarkDistanceOracle forDoctorWhoUniverse(GraphDatabaseService db)
+    {
+        return new LandmarkDistanceOracle(db, AwesomenessRatingEngine.MAX_HOPS,
+                indexed(db, "characters", "character", "Doctor"),
+                indexed(db, "characters", "character", "Master"),
+                indexed(db, "species", "species", "Dalek"),
+                indexed(db, "planets", "planet", "Gallifrey"));
+    }
+
+    private static Node indexed(GraphDatabaseService db, String indexName, String key, String value)
+    {
+        Node node = db.index()
+                      .forNodes(indexName)
+                      .get(key, value)
+                      .getSingle();
+        if (node == null)
+        {
+            throw new IllegalArgumentException(String.format("No landmark [%s] in the [%s] index", value,
+                    indexName));
+        }
+        return node;
+    }
+
+    public LandmarkDistanceOracle(GraphDatabaseService db, int maxSearchHops, Node... landmarks)
+    {
+        this.db = db;
+        this.maxSearchHops = maxSearchHops;
+
+        long highestId = 0;
+        for (Node node : GlobalGraphOperations.at(db).getAllNodes())
+        {
+            highestId = Math.max(highestId, node.getId());
+        }
+        distances = new byte[landmarks.length][];
+        for (int i = 0; i < landmarks.length; i++)
+        {
+            distances[i] = distancesFrom(landmarks[i], (int) highestId + 1);
+        }
+    }
+
+    private byte[] distancesFrom(Node landmark, int nodeIds)
+    {
+        byte[] fromLandmark = new byte[nodeIds];
+        Arrays.fill(fromLandmark, UNREACHED);
+
+        long[] frontier = {landmark.getId()};
+        int frontierSize = 1;
+        fromLandmark[(int) landmark.getId()] = 0;
+        for (int hops = 1; frontierSize > 0; hops++)
+        {
+            byte distance = (byte) Math.min(hops, FAR);
+            long[] nextFrontier = new long[Math.max(16, frontierSize)];
+            int nextFrontierSize = 0;
+            for (int i = 0; i < frontierSize; i++)
+            {
+                Node node = db.getNodeById(frontier[i]);
+                for (Relationship relationship : node.getRelationships())
+                {
+                    long other = relationship.getOtherNode(node).getId();
+                    if (other >= nodeIds || fromLandmark[(int) other] != UNREACHED)
+                    {
+                        continue;
+                    }
+                    fromLandmark[(int) other] = distance;
+                    if (nextFrontierSize == nextFrontier.length)
+                    {
+                        nextFrontier = Arrays.copyOf(nextFrontier, nextFrontierSize * 2);
+                    }
+                    nextFrontier[nextFrontierSize++] = other;
+                }
+            }
+            frontier = nextFrontier;
+            frontierSize = nextFrontierSize;
+        }
+        return fromLandmark;
+    }
+
+    /**
+     * @return the most hops the nodes can be apart, or {@link #UNKNOWN} if no landmark knows both
+     */
+    public int upperBound(long fromNodeId, long toNodeId)
+    {
+        if (fromNodeId == toNodeId)
+        {
+            return 0;
+        }
+        int upper = UNKNOWN;
+        for (byte[] fromLandmark : distances)
+        {
+            int from = known(fromLandmark, fromNodeId);
+            int to = known(fromLandmark, toNodeId);
+            if (from != UNKNOWN && to != UNKNOWN && (upper == UNKNOWN || from + to < upper))
+            {
+                upper = from + to;
+            }
+        }
+        return upper;
+    }
+
+    /**
+     * @return the fewest hops the nodes can be apart
+     */
+    public int lowerBound(long fromNodeId, long toNodeId)
+    {
+        if (fromNodeId == toNodeId)
+        {
+            return 0;
+        }
+        int lower = 1;
+        for (byte[] fromLandmark : distances)
+        {
+            int from = known(fromLandmark, fromNodeId);
+            int to = known(fromLandmark, toNodeId);
+            if (from != UNKNOWN && to != UNKNOWN)
+            {
+                lower = Math.max(lower, Math.abs(from - to));
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * @return the hops between the nodes, or {@link HopDistance#UNREACHABLE} if they are not connected
+     *         or are further apart than the search goes
+     */
+    public int distance(long fromNodeId, long toNodeId)
+    {
+        if (fromNodeId == toNodeId)
+        {
+            return 0;
+        }
+        if (disconnected(fromNodeId, toNodeId))
+        {
+            return HopDistance.UNREACHABLE;
+        }
+
+        int upper = upperBound(fromNodeId, toNodeId);
+        if (upper != UNKNOWN && upper == lowerBound(fromNodeId, toNodeId))
+        {
+            return upper;
+        }
+        return exact.hops(db, fromNodeId, toNodeId, upper == UNKNOWN ? maxSearchHops : upper);
+    }
+
+    /**
+     * A landmark that reaches one node but not the other proves they are in different components.
+     */
+    private boolean disconnected(long fromNodeId, long toNodeId)
+    {
+        for (byte[] fromLandmark : distances)
+        {
+            if (fromNodeId < fromLandmark.length && toNodeId < fromLandmark.length
+                    && (fromLandmark[(int) fromNodeId] == UNREACHED) != (fromLandmark[(int) toNodeId] == UNREACHED))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The exact distance from the landmark, or {@link #UNKNOWN} if it was not reached, was too far to
+     * store, or the node is newer than the oracle.
+     */
+    private static int known(byte[] fromLandmark, long nodeId)
+    {
+        if (nodeId >= fromLandmark.length)
+        {
+            return UNKNOWN;
+        }
+        byte distance = fromLandmark[(int) nodeId];
+        return distance == UNREACHED || distance == FAR ? UNKNOWN : distance;
+    }
+}
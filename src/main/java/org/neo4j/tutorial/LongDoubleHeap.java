@@ -0,0 +1,113 @@
+package org.neo4j.tutorial;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of long keys ordered by double priorities, stored in primitive arrays so that
+ * neither pushing nor popping boxes or allocates once the arrays have grown. A key can be pushed
+ * again with a lower priority instead of being decreased in place; callers skip the stale entries
+ * as they pop them.
+ */
+public class LongDoubleHeap
+{
+    private long[] keys;
+    private double[] priorities;
+    private int size;
+
+    public LongDoubleHeap()
+    {
+        this(16);
+    }
+
+    public LongDoubleHeap(int expectedSize)
+    {
+        keys = new long[Math.max(expectedSize, 16)];
+        priorities = new double[keys.length];
+    }
+
+    public void push(long key, double priority)
+    {
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf(keys, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+
+        int child = size++;
+        while (child > 0)
+        {
+            int parent = (child - 1) >>> 1;
+            if (priorities[parent] <= priority)
+            {
+                break;
+            }
+            keys[child] = keys[parent];
+            priorities[child] = priorities[parent];
+            child = parent;
+        }
+        keys[child] = key;
+        priorities[child] = priority;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public double minPriority()
+    {
+        if (size == 0)
+        {
+            throw new IllegalStateException("The heap is empty");
+        }
+        return priorities[0];
+    }
+
+    public long popMin()
+    {
+        if (size == 0)
+        {
+            throw new IllegalStateException("The heap is empty");
+        }
+        long min = keys[0];
+        size--;
+        if (size > 0)
+        {
+            long key = keys[size];
+            double priority = priorities[size];
+            int parent = 0;
+            while (true)
+            {
+                int child = parent * 2 + 1;
+                if (child >= size)
+                {
+                    break;
+                }
+                if (child + 1 < size && priorities[child + 1] < priorities[child])
+                {
+                    child++;
+                }
+                if (priority <= priorities[child])
+                {
+                    break;
+                }
+                keys[parent] = keys[child];
+                priorities[parent] = priorities[child];
+                parent = child;
+            }
+            keys[parent] = key;
+            priorities[parent] = priority;
+        }
+        return min;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+}
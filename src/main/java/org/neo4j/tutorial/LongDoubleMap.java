@@ -0,0 +1,173 @@
+package org.neo4j.tutorial;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from long to double, stored in primitive arrays so that neither
+ * keys nor values are boxed. Keys must be non-negative, which holds for node and relationship ids.
+ */
+public class LongDoubleMap
+{
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+
+    public LongDoubleMap()
+    {
+        this(16);
+    }
+
+    public LongDoubleMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return true if the key was added, false if an existing value was replaced
+     */
+    public boolean put(long key, double value)
+    {
+        if (key < 0)
+        {
+            throw new IllegalArgumentException("Only non-negative keys can be stored, got " + key);
+        }
+
+        int slot = slotOf(key);
+        if (keys[slot] == key)
+        {
+            values[slot] = value;
+            return false;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 4 > keys.length * 3)
+        {
+            grow();
+        }
+        return true;
+    }
+
+    public double get(long key, double defaultValue)
+    {
+        if (key < 0)
+        {
+            return defaultValue;
+        }
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(long key)
+    {
+        return key >= 0 && keys[slotOf(key)] == key;
+    }
+
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(long key)
+    {
+        if (key < 0)
+        {
+            return false;
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key);
+        if (keys[slot] != key)
+        {
+            return false;
+        }
+
+        // shift later entries of the same probe run back, so that lookups never stop short at the hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY)
+        {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask))
+            {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * A copy of the keys, in no particular order.
+     */
+    public long[] keys()
+    {
+        long[] result = new long[size];
+        int i = 0;
+        for (long key : keys)
+        {
+            if (key != EMPTY)
+            {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int slotOf(long key)
+    {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != EMPTY)
+            {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
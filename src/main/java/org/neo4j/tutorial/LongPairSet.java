@@ -0,0 +1,115 @@
+package org.neo4j.tutorial;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash set of (long, long) pairs, stored in two primitive arrays so that
+ * membership checks neither box nor allocate. Both halves of a pair must be non-negative,
+ * which holds for node and relationship ids.
+ */
+public class LongPairSet
+{
+    private static final long EMPTY = -1;
+
+    private long[] firsts;
+    private long[] seconds;
+    private int size;
+
+    public LongPairSet()
+    {
+        this(16);
+    }
+
+    public LongPairSet(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return true if the pair was added, false if it was already present
+     */
+    public boolean add(long first, long second)
+    {
+        if (first < 0 || second < 0)
+        {
+            throw new IllegalArgumentException("Only non-negative pairs can be stored, got (" + first + ", " + second + ")");
+        }
+
+        int mask = firsts.length - 1;
+        int slot = hash(first, second) & mask;
+        while (firsts[slot] != EMPTY)
+        {
+            if (firsts[slot] == first && seconds[slot] == second)
+            {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        firsts[slot] = first;
+        seconds[slot] = second;
+        if (++size * 4 > firsts.length * 3)
+        {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long first, long second)
+    {
+        int mask = firsts.length - 1;
+        int slot = hash(first, second) & mask;
+        while (firsts[slot] != EMPTY)
+        {
+            if (firsts[slot] == first && seconds[slot] == second)
+            {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(firsts, EMPTY);
+        size = 0;
+    }
+
+    private void grow()
+    {
+        long[] oldFirsts = firsts;
+        long[] oldSeconds = seconds;
+        allocate(oldFirsts.length * 2);
+        size = 0;
+        for (int i = 0; i < oldFirsts.length; i++)
+        {
+            if (oldFirsts[i] != EMPTY)
+            {
+                add(oldFirsts[i], oldSeconds[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        firsts = new long[capacity];
+        seconds = new long[capacity];
+        Arrays.fill(firsts, EMPTY);
+    }
+
+    private static int hash(long first, long second)
+    {
+        long h = first * 0x9E3779B97F4A7C15L + second;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
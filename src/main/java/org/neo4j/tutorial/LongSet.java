@@ -0,0 +1,114 @@
+package org.neo4j.tutorial;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash set of longs, stored in a primitive array so that membership checks
+ * neither box nor allocate. Values must be non-negative, which holds for node and relationship ids.
+ */
+public class LongSet
+{
+    private static final long EMPTY = -1;
+
+    private long[] values;
+    private int size;
+
+    public LongSet()
+    {
+        this(16);
+    }
+
+    public LongSet(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return true if the value was added, false if it was already present
+     */
+    public boolean add(long value)
+    {
+        if (value < 0)
+        {
+            throw new IllegalArgumentException("Only non-negative values can be stored, got " + value);
+        }
+
+        int mask = values.length - 1;
+        int slot = hash(value) & mask;
+        while (values[slot] != EMPTY)
+        {
+            if (values[slot] == value)
+            {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        values[slot] = value;
+        if (++size * 4 > values.length * 3)
+        {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long value)
+    {
+        if (value < 0)
+        {
+            return false;
+        }
+        int mask = values.length - 1;
+        int slot = hash(value) & mask;
+        while (values[slot] != EMPTY)
+        {
+            if (values[slot] == value)
+            {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    private void grow()
+    {
+        long[] oldValues = values;
+        allocate(oldValues.length * 2);
+        size = 0;
+        for (long value : oldValues)
+        {
+            if (value != EMPTY)
+            {
+                add(value);
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        values = new long[capacity];
+        Arrays.fill(values, EMPTY);
+    }
+
+    private static int hash(long value)
+    {
+        long h = value * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,335 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.neo4j.tutorial.AwesomenessRatingEngine.MAX_HOPS;
+
+/**
+ * Keeps every node's awesomeness rating in its {@value #AWESOMENESS} property, so that reading a
+ * rating is a property fetch. Nodes further than {@link AwesomenessRatingEngine#MAX_HOPS} from the
+ * Doctor have no rating.
+ * <p/>
+ * The ratings are computed once when materialized, and then kept up to date before each commit.
+ * Only the nodes around the relationships a transaction created or deleted are looked at: nodes
+ * that lost their last shortest path to the Doctor are rated again from their neighbours, and
+ * shorter paths through new relationships are followed outwards for as long as they improve on
+ * the stored ratings.
+ */
+public class MaterializedAwesomeness
+{
+    public static final String AWESOMENESS = "awesomeness";
+
+    private static final int UNRATED = Integer.MAX_VALUE;
+
+    private final GraphDatabaseService db;
+    private final TransactionEventHandler<Void> maintainer = new MaintainRatings();
+
+    public static MaterializedAwesomeness materialize(GraphDatabaseService db)
+    {
+        MaterializedAwesomeness materialized = new MaterializedAwesomeness(db);
+        Transaction tx = db.beginTx();
+        try
+        {
+            materialized.rateEverything();
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+        db.registerTransactionEventHandler(materialized.maintainer);
+        return materialized;
+    }
+
+    /**
+     * The stored rating of the node, or 0 if it is too far from the Doctor to be rated.
+     */
+    public static double awesomenessOf(Node node)
+    {
+        return (Double) node.getProperty(AWESOMENESS, 0.0);
+    }
+
+    private MaterializedAwesomeness(GraphDatabaseService db)
+    {
+        this.db = db;
+    }
+
+    public void stop()
+    {
+        db.unregisterTransactionEventHandler(maintainer);
+    }
+
+    private void rateEverything()
+    {
+        LongDoubleMap ratings = new AwesomenessRatingEngine().rateAwesomenessOfEverything(db);
+        for (Node node : GlobalGraphOperations.at(db).getAllNodes())
+        {
+            double rating = ratings.get(node.getId(), -1);
+            if (rating >= 0)
+            {
+                node.setProperty(AWESOMENESS, rating);
+            } else if (node.hasProperty(AWESOMENESS))
+            {
+                node.removeProperty(AWESOMENESS);
+            }
+        }
+    }
+
+    private Node theDoctor()
+    {
+        return db.index()
+                 .forNodes("characters")
+                 .get("character", "Doctor")
+                 .getSingle();
+    }
+
+    private static int hopsFor(double rating)
+    {
+        return (int) Math.round(100.0 / rating) - 1;
+    }
+
+    private class MaintainRatings implements TransactionEventHandler<Void>
+    {
+        public Void beforeCommit(TransactionData data) throws Exception
+        {
+            new Recalculation(data).run();
+            return null;
+        }
+
+        public void afterCommit(TransactionData data, Void state)
+        {
+        }
+
+        public void afterRollback(TransactionData data, Void state)
+        {
+        }
+    }
+
+    /**
+     * Repairs the stored hop counts after one transaction, working on the graph as it will be
+     * committed. Hop counts being changed are held in memory and written out at the end.
+     */
+    private class Recalculation
+    {
+        private final TransactionData data;
+        private final Map<Long, Integer> hops = new HashMap<Long, Integer>();
+        private final Map<Long, Node> changed = new HashMap<Long, Node>();
+        private final List<List<Node>> buckets = new ArrayList<List<Node>>();
+
+        Recalculation(TransactionData data)
+        {
+            this.data = data;
+            for (int i = 0; i <= MAX_HOPS; i++)
+            {
+                buckets.add(new ArrayList<Node>());
+            }
+        }
+
+        void run()
+        {
+            Node theDoctor = theDoctor();
+            if (theDoctor == null)
+            {
+                return;
+            }
+            if (hopsOf(theDoctor) != 0)
+            {
+                rateEverything();
+                return;
+            }
+
+            List<Node> losingPaths = new ArrayList<Node>();
+            if (!endsOfDeletedRelationships(losingPaths))
+            {
+                rateEverything();
+                return;
+            }
+
+            for (Node node : unsupported(losingPaths))
+            {
+                setHops(node, UNRATED);
+            }
+            for (Node node : new ArrayList<Node>(changed.values()))
+            {
+                int best = UNRATED;
+                for (Relationship relationship : node.getRelationships())
+                {
+                    best = Math.min(best, hopsOf(relationship.getOtherNode(node)));
+                }
+                offer(node, best);
+            }
+            for (Relationship relationship : data.createdRelationships())
+            {
+                if (!data.isDeleted(relationship))
+                {
+                    offer(relationship.getEndNode(), hopsOf(relationship.getStartNode()));
+                    offer(relationship.getStartNode(), hopsOf(relationship.getEndNode()));
+                }
+            }
+
+            improve();
+            write();
+        }
+
+        /**
+         * @return false if a deleted relationship no longer knows its nodes
+         */
+        private boolean endsOfDeletedRelationships(List<Node> ends)
+        {
+            Set<Long> deletedNodes = new HashSet<Long>();
+            for (Node node : data.deletedNodes())
+            {
+                deletedNodes.add(node.getId());
+            }
+            for (Relationship relationship : data.deletedRelationships())
+            {
+                Node[] nodes;
+                try
+                {
+                    nodes = relationship.getNodes();
+                } catch (NotFoundException e)
+                {
+                    return false;
+                }
+                for (Node node : nodes)
+                {
+                    if (!deletedNodes.contains(node.getId()))
+                    {
+                        ends.add(node);
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Finds the nodes with no neighbour one hop closer to the Doctor left, and the nodes whose
+         * only closer neighbours are among them, in order of how far they were from the Doctor.
+         */
+        private Set<Node> unsupported(List<Node> losingPaths)
+        {
+            for (Node node : losingPaths)
+            {
+                int nodeHops = hopsOf(node);
+                if (nodeHops != UNRATED && nodeHops > 0)
+                {
+                    buckets.get(nodeHops).add(node);
+                }
+            }
+
+            Set<Node> unsupported = new HashSet<Node>();
+            for (int h = 1; h <= MAX_HOPS; h++)
+            {
+                List<Node> bucket = buckets.get(h);
+                for (Node node : bucket)
+                {
+                    if (unsupported.contains(node) || hasCloserNeighbour(node, h, unsupported))
+                    {
+                        continue;
+                    }
+                    unsupported.add(node);
+                    if (h < MAX_HOPS)
+                    {
+                        for (Relationship relationship : node.getRelationships())
+                        {
+                            Node other = relationship.getOtherNode(node);
+                            if (hopsOf(other) == h + 1)
+                            {
+                                buckets.get(h + 1).add(other);
+                            }
+                        }
+                    }
+                }
+                bucket.clear();
+            }
+            return unsupported;
+        }
+
+        private boolean hasCloserNeighbour(Node node, int nodeHops, Set<Node> unsupported)
+        {
+            for (Relationship relationship : node.getRelationships())
+            {
+                Node other = relationship.getOtherNode(node);
+                if (hopsOf(other) == nodeHops - 1 && !unsupported.contains(other))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void offer(Node node, int neighbourHops)
+        {
+            if (neighbourHops != UNRATED && neighbourHops < MAX_HOPS && neighbourHops + 1 < hopsOf(node))
+            {
+                buckets.get(neighbourHops + 1).add(node);
+            }
+        }
+
+        private void improve()
+        {
+            for (int h = 1; h <= MAX_HOPS; h++)
+            {
+                for (Node node : buckets.get(h))
+                {
+                    if (h < hopsOf(node))
+                    {
+                        setHops(node, h);
+                        for (Relationship relationship : node.getRelationships())
+                        {
+                            offer(relationship.getOtherNode(node), h);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void write()
+        {
+            for (Node node : changed.values())
+            {
+                int nodeHops = hops.get(node.getId());
+                if (nodeHops == UNRATED)
+                {
+                    if (node.hasProperty(AWESOMENESS))
+                    {
+                        node.removeProperty(AWESOMENESS);
+                    }
+                } else
+                {
+                    node.setProperty(AWESOMENESS, AwesomenessRatingEngine.rating(nodeHops));
+                }
+            }
+        }
+
+        private int hopsOf(Node node)
+        {
+            Integer known = hops.get(node.getId());
+            if (known != null)
+            {
+                return known;
+            }
+            Object rating = node.getProperty(AWESOMENESS, null);
+            return rating == null ? UNRATED : hopsFor((Double) rating);
+        }
+
+        private void setHops(Node node, int nodeHops)
+        {
+            hops.put(node.getId(), nodeHops);
+            changed.put(node.getId(), node);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.neo4j.tutorial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the phases of a load on a thread pool, starting each phase as soon as the phases it
+ * depends on have finished. Phases without a dependency between them run concurrently, so they
+ * must only share nodes that are created through {@link GenerationScope#getOrCreate}, and must
+ * only write to nodes they did not create after {@link GenerationScope#beforeWriting}.
+ */
+class ParallelUniverseLoader
+{
+    private final Map<String, Phase> phases = new LinkedHashMap<String, Phase>();
+    private final Set<String> finished = new HashSet<String>();
+    private final Set<String> started = new HashSet<String>();
+    private final int threads;
+    private ExecutorService executor;
+    private RuntimeException failure;
+
+    ParallelUniverseLoader(int threads)
+    {
+        this.threads = threads;
+    }
+
+    ParallelUniverseLoader phase(String name, Runnable work, String... dependsOn)
+    {
+        for (String dependency : dependsOn)
+        {
+            if (!phases.containsKey(dependency))
+            {
+                throw new IllegalArgumentException(String.format("Phase [%s] depends on unknown phase [%s]", name,
+                        dependency));
+            }
+        }
+        if (phases.put(name, new Phase(name, work, Arrays.asList(dependsOn))) != null)
+        {
+            throw new IllegalArgumentException(String.format("Phase [%s] is already defined", name));
+        }
+        return this;
+    }
+
+    void run()
+    {
+        executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            synchronized (this)
+            {
+                startRunnablePhases();
+                while (failure == null && finished.size() < phases.size())
+                {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading the universe", e);
+        } finally
+        {
+            executor.shutdown();
+            awaitRunningPhases();
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    private void startRunnablePhases()
+    {
+        if (failure != null)
+        {
+            return;
+        }
+        for (Phase phase : phases.values())
+        {
+            if (!started.contains(phase.name) && finished.containsAll(phase.dependsOn))
+            {
+                started.add(phase.name);
+                executor.execute(phase);
+            }
+        }
+    }
+
+    private synchronized void phaseFinished(Phase phase, RuntimeException e)
+    {
+        if (e != null)
+        {
+            if (failure == null)
+            {
+                failure = e;
+            }
+        } else
+        {
+            finished.add(phase.name);
+            startRunnablePhases();
+        }
+        notifyAll();
+    }
+
+    private void awaitRunningPhases()
+    {
+        try
+        {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+            {
+                // a failed load still waits for its running phases, so the database can be shut down
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Phase implements Runnable
+    {
+        private final String name;
+        private final Runnable work;
+        private final List<String> dependsOn;
+
+        Phase(String name, Runnable work, List<String> dependsOn)
+        {
+            this.name = name;
+            this.work = work;
+            this.dependsOn = new ArrayList<String>(dependsOn);
+        }
+
+        public void run()
+        {
+            try
+            {
+                work.run();
+                phaseFinished(this, null);
+            } catch (RuntimeException e)
+            {
+                phaseFinished(this, e);
+            } catch (Error e)
+            {
+                phaseFinished(this, new RuntimeException(String.format("Phase [%s] failed", name), e));
+                throw e;
+            }
+        }
+    }
+}
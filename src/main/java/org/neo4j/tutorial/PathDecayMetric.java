@@ -0,0 +1,61 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Rates nodes by every way there is to reach them from the Doctor rather than only the shortest:
+ * 100 times the sum of decay^length over all walks of up to the given depth. Like Katz centrality
+ * it counts walks, which may revisit nodes, rather than simple paths; counting walks takes one pass
+ * over the reached relationships per level of depth, where counting simple paths would grow
+ * exponentially. The Doctor is rated for the walk of length 0 too.
+ */
+public class PathDecayMetric implements AwesomenessMetric
+{
+    private final double decay;
+    private final int depth;
+
+    public PathDecayMetric(double decay, int depth)
+    {
+        if (!(decay > 0 && decay < 1))
+        {
+            throw new IllegalArgumentException("Decay must be between 0 and 1, got " + decay);
+        }
+        if (depth < 0)
+        {
+            throw new IllegalArgumentException("Depth must not be negative, got " + depth);
+        }
+        this.decay = decay;
+        this.depth = depth;
+    }
+
+    public LongDoubleMap rateEverything(GraphDatabaseService db, Node theDoctor)
+    {
+        LongDoubleMap ratings = new LongDoubleMap();
+        LongDoubleMap walks = new LongDoubleMap();
+        walks.put(theDoctor.getId(), 1);
+        ratings.put(theDoctor.getId(), 100);
+
+        for (int length = 1; length <= depth && walks.size() > 0; length++)
+        {
+            LongDoubleMap longerWalks = new LongDoubleMap(walks.size() * 2);
+            for (long nodeId : walks.keys())
+            {
+                double weight = walks.get(nodeId, 0) * decay;
+                Node node = db.getNodeById(nodeId);
+                for (Relationship relationship : node.getRelationships())
+                {
+                    long other = relationship.getOtherNode(node).getId();
+                    longerWalks.put(other, longerWalks.get(other, 0) + weight);
+                }
+            }
+            for (long nodeId : longerWalks.keys())
+            {
+                ratings.put(nodeId, ratings.get(nodeId, 0) + 100 * longerWalks.get(nodeId, 0));
+            }
+            walks = longerWalks;
+        }
+        return ratings;
+    }
+}
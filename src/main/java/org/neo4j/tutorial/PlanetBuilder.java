@@ -21,25 +21,11 @@ public class PlanetBuilder
     public void fact(GraphDatabaseService db)
     {
         ensurePlanetInDb(planetName, db);
+        GenerationScope.of(db).operationCompleted();
     }
 
     public static Node ensurePlanetInDb(String planet, GraphDatabaseService db)
     {
-
-        Node planetNode = db.index()
-                            .forNodes("planets")
-                            .get("planet", planet)
-                            .getSingle();
-
-        if (planetNode == null)
-        {
-            planetNode = db.createNode();
-            planetNode.setProperty("planet", planet);
-            db.index()
-              .forNodes("planets")
-              .add(planetNode, "planet", planet);
-        }
-
-        return planetNode;
+        return GenerationScope.of(db).getOrCreate("planets", "planet", planet);
     }
 }
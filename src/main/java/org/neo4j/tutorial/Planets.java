@@ -1,7 +1,6 @@
 package org.neo4j.tutorial;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Transaction;
 
 import static org.neo4j.tutorial.PlanetBuilder.planet;
 
@@ -17,7 +16,7 @@ public class Planets
 
     public void insert()
     {
-        Transaction tx = db.beginTx();
+        ChunkedTransaction tx = GenerationScope.of(db).beginTx();
         try
         {
             planet("4-X-Alpha-4").fact(db);
@@ -0,0 +1,31 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.Node;
+
+public class RatedNode
+{
+    private final Node node;
+    private final double rating;
+
+    public RatedNode(Node node, double rating)
+    {
+        this.node = node;
+        this.rating = rating;
+    }
+
+    public Node getNode()
+    {
+        return node;
+    }
+
+    public double getRating()
+    {
+        return rating;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s rated [%s]", node, rating);
+    }
+}
@@ -0,0 +1,66 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers every (start node, type, end node) that has been ensured during a generation, so
+ * that checking for a duplicate costs a hash probe rather than a scan of the start node's
+ * relationships. The existing relationships of a start node are scanned once, the first time
+ * it is seen with a given type.
+ */
+class RelationshipDeduplicator
+{
+    private static final int TYPE_BITS = 8;
+
+    private final LongPairSet relationships = new LongPairSet(1024);
+    private final LongPairSet scannedStartNodes = new LongPairSet();
+    private final Map<String, Integer> typeIds = new HashMap<String, Integer>();
+
+    /**
+     * @return true if no such relationship exists yet, in which case it is now considered to exist
+     */
+    synchronized boolean claim(Node startNode, RelationshipType relType, Node endNode)
+    {
+        int typeId = typeId(relType);
+        if (scannedStartNodes.add(startNode.getId(), typeId))
+        {
+            for (Relationship r : startNode.getRelationships(relType, Direction.OUTGOING))
+            {
+                relationships.add(startNode.getId(), endAndType(r.getEndNode().getId(), typeId));
+            }
+        }
+        return relationships.add(startNode.getId(), endAndType(endNode.getId(), typeId));
+    }
+
+    synchronized void clear()
+    {
+        relationships.clear();
+        scannedStartNodes.clear();
+    }
+
+    private int typeId(RelationshipType relType)
+    {
+        Integer typeId = typeIds.get(relType.name());
+        if (typeId == null)
+        {
+            if (typeIds.size() == 1 << TYPE_BITS)
+            {
+                throw new IllegalStateException("Too many relationship types to deduplicate");
+            }
+            typeId = typeIds.size();
+            typeIds.put(relType.name(), typeId);
+        }
+        return typeId;
+    }
+
+    private static long endAndType(long endNodeId, int typeId)
+    {
+        return (endNodeId << TYPE_BITS) | typeId;
+    }
+}
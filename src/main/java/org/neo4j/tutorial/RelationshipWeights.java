@@ -0,0 +1,48 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.RelationshipType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How far apart each type of relationship puts the nodes it connects, for
+ * {@link WeightedDistanceMetric}. Types without a weight of their own weigh 1 unless told otherwise.
+ */
+public class RelationshipWeights
+{
+    private final Map<String, Double> weights = new HashMap<String, Double>();
+    private double defaultWeight = 1.0;
+
+    public static RelationshipWeights relationshipWeights()
+    {
+        return new RelationshipWeights();
+    }
+
+    public RelationshipWeights weigh(DoctorWhoRelationships type, double weight)
+    {
+        weights.put(type.name(), checked(weight));
+        return this;
+    }
+
+    public RelationshipWeights otherwise(double weight)
+    {
+        defaultWeight = checked(weight);
+        return this;
+    }
+
+    public double weightOf(RelationshipType type)
+    {
+        Double weight = weights.get(type.name());
+        return weight == null ? defaultWeight : weight;
+    }
+
+    private static double checked(double weight)
+    {
+        if (!(weight > 0))
+        {
+            throw new IllegalArgumentException("Relationship weights must be positive, got " + weight);
+        }
+        return weight;
+    }
+}
@@ -1,26 +1,30 @@
 package org.neo4j.tutorial;
 
-import com.sun.jersey.api.client.Client;
-import com.sun.jersey.api.client.WebResource;
-import com.sun.jersey.api.client.config.ClientConfig;
-import com.sun.jersey.api.client.config.DefaultClientConfig;
 import org.neo4j.server.NeoServerWithEmbeddedWebServer;
-import org.neo4j.server.rest.domain.JsonHelper;
-import org.neo4j.server.rest.domain.JsonParseException;
 import org.neo4j.tutorial.server.rest.FunctionalTestHelper;
+import org.neo4j.tutorial.server.rest.RestClient;
 
-import javax.ws.rs.core.MediaType;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 public class ServerDoctorWhoUniverse
 {
 
     private final NeoServerWithEmbeddedWebServer server;
+    private final RestClient restClient;
 
     public ServerDoctorWhoUniverse(NeoServerWithEmbeddedWebServer server, DoctorWhoUniverseGenerator universe) throws Exception
+    {
+        this(server, universe, RestClient.DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    public ServerDoctorWhoUniverse(NeoServerWithEmbeddedWebServer server, DoctorWhoUniverseGenerator universe,
+                                   int maxConcurrentRequests) throws Exception
     {
         this.server = server;
         server.start();
+        this.restClient = new RestClient(new FunctionalTestHelper(server).dataUri(), maxConcurrentRequests);
     }
 
     public Map<String, Object> theDoctor()
@@ -30,39 +34,41 @@ public class ServerDoctorWhoUniverse
 
     public Map<String, Object> getJsonFor(String uri)
     {
-        ClientConfig config = new DefaultClientConfig();
-        Client client = Client.create(config);
-        WebResource resource = client.resource(uri);
-        String response = resource.accept(MediaType.APPLICATION_JSON).get(
-                String.class);
-        try
-        {
-            return JsonHelper.jsonToMap(response);
-        } catch (JsonParseException e)
-        {
-            throw new RuntimeException("Invalid response when looking up Doctor node");
-        }
+        return restClient.getJson(restClient.resource(uri));
     }
 
     public String getUriFromIndex(String indexName, String key, String value)
     {
-        ClientConfig config = new DefaultClientConfig();
-        Client client = Client.create(config);
-        WebResource resource = client.resource(new FunctionalTestHelper(server)
-                                                       .indexNodeUri(indexName, key, value));
-        String response = resource.accept(MediaType.APPLICATION_JSON).get(
-                String.class);
-        try
-        {
-            return JsonHelper.jsonToList(response).get(0).get("self").toString();
-        } catch (JsonParseException e)
-        {
-            throw new RuntimeException("Invalid response when looking up node");
-        }
+        return restClient.getJsonList(restClient.nodeIndex(indexName, key, value))
+                         .get(0)
+                         .get("self")
+                         .toString();
+    }
+
+    public Future<Map<String, Object>> getJsonFromIndexAsync(String indexName, String key, String value)
+    {
+        return restClient.getIndexedNodeAsync(indexName, key, value);
+    }
+
+    /**
+     * Looks up many indexed nodes at once, for instance every actor by name.
+     */
+    public Map<Object, Map<String, Object>> getJsonFromIndex(String indexName, String key, Collection<String> values)
+    {
+        return restClient.getIndexedNodes(indexName, key, values);
+    }
+
+    /**
+     * The client shared by every request made to this universe.
+     */
+    public RestClient getRestClient()
+    {
+        return restClient;
     }
 
     void stop()
     {
+        restClient.destroy();
         server.stop();
     }
 
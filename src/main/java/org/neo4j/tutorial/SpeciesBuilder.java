@@ -30,7 +30,7 @@ public class SpeciesBuilder
         if (planet != null)
         {
             Node planetNode = PlanetBuilder.ensurePlanetInDb(planet, db);
-            ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.COMES_FROM, planetNode);
+            ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.COMES_FROM, planetNode, db);
         }
 
         if (enemies != null)
@@ -38,8 +38,8 @@ public class SpeciesBuilder
             for (String enemy : enemies)
             {
                 Node enemyNode = CharacterBuilder.ensureCharacterIsInDb(enemy, db);
-                ensureRelationshipInDb(enemyNode, DoctorWhoRelationships.ENEMY_OF, speciesNode);
-                ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.ENEMY_OF, enemyNode);
+                ensureRelationshipInDb(enemyNode, DoctorWhoRelationships.ENEMY_OF, speciesNode, db);
+                ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.ENEMY_OF, enemyNode, db);
             }
         }
 
@@ -48,31 +48,19 @@ public class SpeciesBuilder
             for (String eSpecies : enemySpecies)
             {
                 Node enemySpeciesNode = ensureSpeciesInDb(eSpecies, db);
-                ensureRelationshipInDb(enemySpeciesNode, DoctorWhoRelationships.ENEMY_OF, speciesNode);
-                ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.ENEMY_OF, enemySpeciesNode);
+                ensureRelationshipInDb(enemySpeciesNode, DoctorWhoRelationships.ENEMY_OF, speciesNode, db);
+                ensureRelationshipInDb(speciesNode, DoctorWhoRelationships.ENEMY_OF, enemySpeciesNode, db);
             }
         }
+
+        GenerationScope.of(db).operationCompleted();
     }
 
     public static Node ensureSpeciesInDb(String theSpecies, GraphDatabaseService db)
     {
         ensureArgumentsAreSane(theSpecies, db);
 
-        Node speciesNode = db.index()
-                             .forNodes("species")
-                             .get("species", theSpecies)
-                             .getSingle();
-
-        if (speciesNode == null)
-        {
-            speciesNode = db.createNode();
-            speciesNode.setProperty("species", theSpecies);
-            db.index()
-              .forNodes("species")
-              .add(speciesNode, "species", theSpecies);
-        }
-
-        return speciesNode;
+        return GenerationScope.of(db).getOrCreate("species", "species", theSpecies);
     }
 
     private static void ensureArgumentsAreSane(String theSpecies, GraphDatabaseService db)
@@ -0,0 +1,464 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.index.BatchInserterIndex;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.index.impl.lucene.LuceneBatchInserterIndexProvider;
+import org.neo4j.kernel.impl.batchinsert.BatchInserter;
+import org.neo4j.kernel.impl.batchinsert.BatchInserterImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a Doctor Who shaped universe of arbitrary size, for load testing traversals and
+ * queries. It uses the same relationship types and indexes as {@link DoctorWhoUniverseGenerator},
+ * but invents its episodes, characters, species and planets. Appearances in episodes follow a
+ * Zipf distribution, so a few enemies and companions turn up everywhere, as the Master and
+ * the Daleks do in the real thing. The same seed always generates the same universe.
+ * <p/>
+ * Everything is streamed straight into the store files through a batch inserter.
+ */
+public class SyntheticUniverseGenerator
+{
+    private static final Map<String, String> EXACT = MapUtil.stringMap("type", "exact");
+    private static final Map<String, Object> NO_PROPERTIES = Collections.emptyMap();
+    private static final int MAX_REJECTIONS = 64;
+
+    private String dbDir = null;
+    private long seed = 42;
+    private int episodes = 1000;
+    private int characters = 1000;
+    private int species = 50;
+    private int planets = 400;
+    private int things = 100;
+    private int doctorActors = 11;
+    private double companionShare = 0.25;
+    private int companionsPerEpisode = 3;
+    private int enemiesPerEpisode = 2;
+    private double dalekEpisodeShare = 0.1;
+    private double skew = 1.0;
+
+    private BatchInserter inserter;
+    private Random random;
+    private long relationshipCount;
+
+    public static SyntheticUniverseGenerator syntheticUniverse()
+    {
+        return new SyntheticUniverseGenerator();
+    }
+
+    public SyntheticUniverseGenerator usingDatabaseDir(String dbDir)
+    {
+        this.dbDir = dbDir;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withSeed(long seed)
+    {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withEpisodes(int episodes)
+    {
+        if (episodes < 0)
+        {
+            throw new IllegalArgumentException("Number of episodes must not be negative");
+        }
+        this.episodes = episodes;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withCharacters(int characters)
+    {
+        if (characters < 0)
+        {
+            throw new IllegalArgumentException("Number of characters must not be negative");
+        }
+        this.characters = characters;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withSpecies(int species)
+    {
+        this.species = Math.max(species, 2);
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withPlanets(int planets)
+    {
+        this.planets = Math.max(planets, 1);
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withThings(int things)
+    {
+        this.things = things;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withDoctorActors(int doctorActors)
+    {
+        this.doctorActors = Math.max(doctorActors, 1);
+        return this;
+    }
+
+    /**
+     * The share of characters who are companions; the rest are enemies.
+     */
+    public SyntheticUniverseGenerator withCompanionShare(double companionShare)
+    {
+        this.companionShare = companionShare;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withCompanionsPerEpisode(int companionsPerEpisode)
+    {
+        this.companionsPerEpisode = companionsPerEpisode;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withEnemiesPerEpisode(int enemiesPerEpisode)
+    {
+        this.enemiesPerEpisode = enemiesPerEpisode;
+        return this;
+    }
+
+    public SyntheticUniverseGenerator withDalekEpisodeShare(double dalekEpisodeShare)
+    {
+        this.dalekEpisodeShare = dalekEpisodeShare;
+        return this;
+    }
+
+    /**
+     * The Zipf exponent for appearances and origins: 0 is uniform, larger is more skewed.
+     */
+    public SyntheticUniverseGenerator withSkew(double skew)
+    {
+        this.skew = skew;
+        return this;
+    }
+
+    /**
+     * @return the directory of the generated store
+     */
+    public String generate()
+    {
+        if (dbDir == null)
+        {
+            dbDir = DatabaseHelper.createTempDatabaseDir().getAbsolutePath();
+        }
+
+        random = new Random(seed);
+        relationshipCount = 0;
+        inserter = new BatchInserterImpl(dbDir);
+        LuceneBatchInserterIndexProvider indexProvider = new LuceneBatchInserterIndexProvider(inserter);
+        try
+        {
+            Indexes indexes = new Indexes(indexProvider);
+
+            long[] planetIds = createNamedNodes("planet", "Planet", planets, indexes.planets, "Gallifrey");
+            long[] speciesIds = createNamedNodes("species", "Species", species, indexes.species, "Timelord", "Dalek");
+            long theDoctor = createNode("character", "Doctor", indexes.characters);
+            long[] doctorActorIds = createDoctorActors(theDoctor, indexes.actors);
+
+            int companions = (int) Math.round(characters * companionShare);
+            long[] companionIds = createNamedNodes("character", "Companion", companions, indexes.characters);
+            long[] enemyIds = createNamedNodes("character", "Enemy", characters - companions, indexes.characters);
+
+            linkSpecies(theDoctor, speciesIds, planetIds);
+            linkCharacters(theDoctor, speciesIds, planetIds, companionIds, enemyIds, indexes.things);
+            createEpisodes(doctorActorIds, companionIds, enemyIds, speciesIds[1], indexes);
+        } finally
+        {
+            indexProvider.shutdown();
+            inserter.shutdown();
+        }
+        return dbDir;
+    }
+
+    /**
+     * @return the number of relationships created by the last {@link #generate()}
+     */
+    public long getRelationshipCount()
+    {
+        return relationshipCount;
+    }
+
+    private long[] createDoctorActors(long theDoctor, BatchInserterIndex actors)
+    {
+        long[] ids = createNamedNodes("actor", "Doctor Actor", doctorActors, actors);
+        for (int i = 0; i < ids.length; i++)
+        {
+            relate(ids[i], DoctorWhoRelationships.PLAYED, theDoctor);
+            if (i > 0)
+            {
+                relate(ids[i - 1], DoctorWhoRelationships.REGENERATED_TO, ids[i]);
+            }
+        }
+        return ids;
+    }
+
+    private void linkSpecies(long theDoctor, long[] speciesIds, long[] planetIds)
+    {
+        Zipf planetPicker = new Zipf(planetIds.length, skew);
+
+        // The first species are always the Time Lords of Gallifrey and their oldest enemies
+        relate(speciesIds[0], DoctorWhoRelationships.COMES_FROM, planetIds[0]);
+        relate(theDoctor, DoctorWhoRelationships.IS_A, speciesIds[0]);
+        relate(theDoctor, DoctorWhoRelationships.COMES_FROM, planetIds[0]);
+
+        for (int i = 1; i < speciesIds.length; i++)
+        {
+            relate(speciesIds[i], DoctorWhoRelationships.COMES_FROM, planetIds[planetPicker.next(random)]);
+            if (i % 2 == 1)
+            {
+                relate(speciesIds[i], DoctorWhoRelationships.ENEMY_OF, theDoctor);
+                relate(theDoctor, DoctorWhoRelationships.ENEMY_OF, speciesIds[i]);
+            }
+        }
+    }
+
+    private void linkCharacters(long theDoctor, long[] speciesIds, long[] planetIds, long[] companionIds,
+                                long[] enemyIds, BatchInserterIndex thingsIndex)
+    {
+        Zipf speciesPicker = new Zipf(speciesIds.length, skew);
+        Zipf planetPicker = new Zipf(planetIds.length, skew);
+
+        for (long companion : companionIds)
+        {
+            relate(companion, DoctorWhoRelationships.COMPANION_OF, theDoctor);
+            relate(companion, DoctorWhoRelationships.IS_A, speciesIds[speciesPicker.next(random)]);
+            relate(companion, DoctorWhoRelationships.COMES_FROM, planetIds[planetPicker.next(random)]);
+        }
+
+        for (long enemy : enemyIds)
+        {
+            relate(enemy, DoctorWhoRelationships.ENEMY_OF, theDoctor);
+            relate(theDoctor, DoctorWhoRelationships.ENEMY_OF, enemy);
+            relate(enemy, DoctorWhoRelationships.IS_A, speciesIds[speciesPicker.next(random)]);
+            relate(enemy, DoctorWhoRelationships.COMES_FROM, planetIds[planetPicker.next(random)]);
+        }
+
+        long[] thingIds = createNamedNodes("thing", "Thing", things, thingsIndex, "Tardis");
+        if (thingIds.length > 0)
+        {
+            relate(theDoctor, DoctorWhoRelationships.OWNS, thingIds[0]);
+        }
+        long[] everyone = concat(companionIds, enemyIds);
+        if (everyone.length > 0)
+        {
+            Zipf ownerPicker = new Zipf(everyone.length, skew);
+            for (int i = 1; i < thingIds.length; i++)
+            {
+                relate(everyone[ownerPicker.next(random)], DoctorWhoRelationships.OWNS, thingIds[i]);
+            }
+        }
+    }
+
+    private void createEpisodes(long[] doctorActorIds, long[] companionIds, long[] enemyIds, long dalekSpecies,
+                                Indexes indexes)
+    {
+        Zipf companionPicker = companionIds.length > 0 ? new Zipf(companionIds.length, skew) : null;
+        Zipf enemyPicker = enemyIds.length > 0 ? new Zipf(enemyIds.length, skew) : null;
+        int[] picked = new int[Math.max(companionsPerEpisode, enemiesPerEpisode)];
+        long dalekProps = 0;
+        long previousEpisode = -1;
+
+        for (int i = 0; i < episodes; i++)
+        {
+            String episodeNumber = String.valueOf(i + 1);
+            String title = "Episode " + episodeNumber;
+            long episode = inserter.createNode(MapUtil.map("episode", episodeNumber, "title", title));
+            indexes.episodes.add(episode, MapUtil.map("episode", episodeNumber, "title", title));
+
+            relate(doctorActorIds[(int) ((long) i * doctorActorIds.length / episodes)],
+                   DoctorWhoRelationships.APPEARED_IN, episode);
+            appear(companionIds, companionPicker, companionsPerEpisode, picked, episode);
+            appear(enemyIds, enemyPicker, enemiesPerEpisode, picked, episode);
+
+            if (random.nextDouble() < dalekEpisodeShare)
+            {
+                relate(dalekSpecies, DoctorWhoRelationships.APPEARED_IN, episode);
+                long propGroup = inserter.createNode(MapUtil.map("props", "Daleks"));
+                relate(propGroup, DoctorWhoRelationships.USED_IN, episode);
+                int propsInEpisode = 1 + random.nextInt(3);
+                for (int p = 0; p < propsInEpisode; p++)
+                {
+                    String propName = "Dalek " + (++dalekProps);
+                    long prop = inserter.createNode(MapUtil.map("prop", propName));
+                    indexes.props.add(prop, MapUtil.map("prop", propName));
+                    relate(prop, DoctorWhoRelationships.MEMBER_OF, propGroup);
+                }
+            }
+
+            if (previousEpisode != -1)
+            {
+                relate(previousEpisode, DoctorWhoRelationships.NEXT, episode);
+                relate(episode, DoctorWhoRelationships.PREVIOUS, previousEpisode);
+            }
+            previousEpisode = episode;
+        }
+    }
+
+    /**
+     * Picks distinct cast members by rejection sampling, which needs few draws while the cast is
+     * much larger than the episode's share of it. A skewed distribution over a small cast can keep
+     * drawing the same few members though, so after {@link #MAX_REJECTIONS} repeats the remaining
+     * places are filled uniformly from the members not picked yet.
+     */
+    private void appear(long[] cast, Zipf picker, int count, int[] picked, long episode)
+    {
+        int appearances = Math.min(count, cast.length);
+        int chosen = 0;
+        int rejections = 0;
+        while (chosen < appearances && rejections < MAX_REJECTIONS)
+        {
+            int candidate = picker.next(random);
+            if (contains(picked, chosen, candidate))
+            {
+                rejections++;
+            }
+            else
+            {
+                picked[chosen++] = candidate;
+            }
+        }
+        if (chosen < appearances)
+        {
+            pickFromTheRest(cast.length, chosen, appearances, picked);
+        }
+
+        for (int i = 0; i < appearances; i++)
+        {
+            relate(cast[picked[i]], DoctorWhoRelationships.APPEARED_IN, episode);
+        }
+    }
+
+    /**
+     * Fills picked[chosen..appearances) by a partial Fisher-Yates shuffle of the cast members that
+     * are not among the first chosen picks.
+     */
+    private void pickFromTheRest(int castSize, int chosen, int appearances, int[] picked)
+    {
+        int[] rest = new int[castSize - chosen];
+        int restSize = 0;
+        for (int member = 0; member < castSize; member++)
+        {
+            if (!contains(picked, chosen, member))
+            {
+                rest[restSize++] = member;
+            }
+        }
+
+        for (int i = 0; i < appearances - chosen; i++)
+        {
+            int swap = i + random.nextInt(restSize - i);
+            int member = rest[swap];
+            rest[swap] = rest[i];
+            rest[i] = member;
+            picked[chosen + i] = member;
+        }
+    }
+
+    private long[] createNamedNodes(String key, String prefix, int count, BatchInserterIndex index,
+                                    String... wellKnownNames)
+    {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++)
+        {
+            String name = i < wellKnownNames.length ? wellKnownNames[i] : prefix + " " + (i + 1);
+            ids[i] = createNode(key, name, index);
+        }
+        return ids;
+    }
+
+    private long createNode(String key, String name, BatchInserterIndex index)
+    {
+        Map<String, Object> properties = MapUtil.map(key, name);
+        long id = inserter.createNode(properties);
+        index.add(id, properties);
+        return id;
+    }
+
+    private void relate(long startNode, RelationshipType type, long endNode)
+    {
+        inserter.createRelationship(startNode, endNode, type, NO_PROPERTIES);
+        relationshipCount++;
+    }
+
+    private static boolean contains(int[] values, int length, int value)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (values[i] == value)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] concat(long[] first, long[] second)
+    {
+        long[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static class Indexes
+    {
+        final BatchInserterIndex characters;
+        final BatchInserterIndex species;
+        final BatchInserterIndex planets;
+        final BatchInserterIndex episodes;
+        final BatchInserterIndex actors;
+        final BatchInserterIndex things;
+        final BatchInserterIndex props;
+
+        Indexes(LuceneBatchInserterIndexProvider provider)
+        {
+            characters = provider.nodeIndex("characters", EXACT);
+            species = provider.nodeIndex("species", EXACT);
+            planets = provider.nodeIndex("planets", EXACT);
+            episodes = provider.nodeIndex("episodes", EXACT);
+            actors = provider.nodeIndex("actors", EXACT);
+            things = provider.nodeIndex("things", EXACT);
+            props = provider.nodeIndex("props", EXACT);
+        }
+    }
+
+    /**
+     * Samples ranks 0..n-1 with probability proportional to 1/(rank+1)^skew, by binary search
+     * over the cumulative distribution.
+     */
+    private static class Zipf
+    {
+        private final double[] cumulative;
+
+        Zipf(int n, double skew)
+        {
+            cumulative = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++)
+            {
+                total += 1.0 / Math.pow(i + 1, skew);
+                cumulative[i] = total;
+            }
+            for (int i = 0; i < n; i++)
+            {
+                cumulative[i] /= total;
+            }
+        }
+
+        int next(Random random)
+        {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int rank = index >= 0 ? index : -index - 1;
+            return Math.min(rank, cumulative.length - 1);
+        }
+    }
+}
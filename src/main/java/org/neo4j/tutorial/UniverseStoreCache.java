@@ -0,0 +1,314 @@
+package org.neo4j.tutorial;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Builds the Doctor Who universe once per revision of the classes that describe it and keeps
+ * the resulting store on disk. Callers get their own copy of that golden store, so opening a
+ * universe costs a file copy rather than a full ingest.
+ * <p/>
+ * The revision is a digest of every class file in this package, inner and anonymous classes
+ * included, since any of them may change the data. Subpackages such as the server and ingest
+ * classes are left out, as the generator does not depend on them. A golden store is generated in a
+ * staging directory inside the cache and published by renaming it, so a store under its revision's
+ * name is always complete. Publishing a revision deletes the stores of any earlier revisions.
+ * <p/>
+ * Copies are made with {@link FileChannel#transferTo} rather than hard links, since Neo4j
+ * rewrites its store files in place and a hard link would let one copy corrupt the others.
+ */
+public class UniverseStoreCache
+{
+    private static final String CACHE_DIR_PROPERTY = "neo4j.koans.universe.cache";
+
+    private static final String DATA_PACKAGE = UniverseStoreCache.class.getPackage()
+                                                                        .getName()
+                                                                        .replace('.', '/') + "/";
+
+    private static final String REVISION_PATTERN = "[0-9a-f]{40}";
+
+    private static final UniverseStoreCache defaultCache = new UniverseStoreCache(defaultCacheDir());
+
+    private final File cacheDir;
+
+    public static UniverseStoreCache defaultCache()
+    {
+        return defaultCache;
+    }
+
+    public UniverseStoreCache(File cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    public String copyOfUniverse()
+    {
+        File copy = DatabaseHelper.createTempDatabaseDir();
+        try
+        {
+            copyDirectory(goldenStore(), copy);
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to copy the cached universe to " + copy.getAbsolutePath(), e);
+        }
+        return copy.getAbsolutePath();
+    }
+
+    synchronized File goldenStore()
+    {
+        File golden = new File(cacheDir, revision());
+        if (golden.isDirectory())
+        {
+            return golden;
+        }
+
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs())
+        {
+            throw new RuntimeException("Unable to create universe cache directory " + cacheDir.getAbsolutePath());
+        }
+
+        File staging = stagingDir(golden);
+        try
+        {
+            new DoctorWhoUniverseGenerator(staging.getAbsolutePath(), IngestMode.TRANSACTIONAL,
+                                           CommitPolicy.singleTransaction());
+
+            // Another build may have published the same revision while we were generating, in which case its store is just as good
+            if (!staging.renameTo(golden) && !golden.isDirectory())
+            {
+                throw new RuntimeException("Unable to publish universe cache at " + golden.getAbsolutePath());
+            }
+        } finally
+        {
+            deleteDirectory(staging);
+        }
+        deleteSupersededRevisions(golden);
+        return golden;
+    }
+
+    /**
+     * Staging directories are left alone, since another build may still be generating in them.
+     */
+    private void deleteSupersededRevisions(File golden)
+    {
+        File[] revisions = cacheDir.listFiles();
+        if (revisions == null)
+        {
+            return;
+        }
+        for (File revision : revisions)
+        {
+            if (revision.isDirectory() && revision.getName().matches(REVISION_PATTERN) && !revision.equals(golden))
+            {
+                deleteDirectory(revision);
+            }
+        }
+    }
+
+    private File stagingDir(File golden)
+    {
+        try
+        {
+            File staging = File.createTempFile(golden.getName() + ".", ".staging", cacheDir);
+            if (!staging.delete() || !staging.mkdir())
+            {
+                throw new IOException("Unable to create directory " + staging.getAbsolutePath());
+            }
+            return staging;
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to stage the universe in " + cacheDir.getAbsolutePath(), e);
+        }
+    }
+
+    static String revision()
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[8192];
+            for (String dataClassFile : dataClassFiles())
+            {
+                digest.update(dataClassFile.getBytes("UTF-8"));
+                InputStream in = UniverseStoreCache.class.getClassLoader()
+                                                         .getResourceAsStream(dataClassFile);
+                if (in == null)
+                {
+                    throw new RuntimeException("Unable to read class file " + dataClassFile);
+                }
+                try
+                {
+                    int read;
+                    while ((read = in.read(buffer)) != -1)
+                    {
+                        digest.update(buffer, 0, read);
+                    }
+                } finally
+                {
+                    in.close();
+                }
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException(e);
+        } catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The resource names of every class file in this package, but not its subpackages, in a stable
+     * order, whether the classes were loaded from a directory or from a jar.
+     */
+    static List<String> dataClassFiles() throws IOException
+    {
+        URL location = UniverseStoreCache.class.getProtectionDomain()
+                                               .getCodeSource()
+                                               .getLocation();
+        File classes;
+        try
+        {
+            classes = new File(location.toURI());
+        } catch (URISyntaxException e)
+        {
+            throw new IOException("Unable to locate the classes at " + location);
+        }
+
+        List<String> names = new ArrayList<String>();
+        if (classes.isDirectory())
+        {
+            File[] files = new File(classes, DATA_PACKAGE).listFiles();
+            if (files != null)
+            {
+                for (File file : files)
+                {
+                    if (file.isFile() && file.getName()
+                                             .endsWith(".class"))
+                    {
+                        names.add(DATA_PACKAGE + file.getName());
+                    }
+                }
+            }
+        }
+        else
+        {
+            JarFile jar = new JarFile(classes);
+            try
+            {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements())
+                {
+                    String name = entries.nextElement()
+                                         .getName();
+                    if (name.startsWith(DATA_PACKAGE) && name.indexOf('/', DATA_PACKAGE.length()) == -1
+                            && name.endsWith(".class"))
+                    {
+                        names.add(name);
+                    }
+                }
+            } finally
+            {
+                jar.close();
+            }
+        }
+        if (names.isEmpty())
+        {
+            throw new IOException("Found no class files under " + DATA_PACKAGE + " in " + classes.getAbsolutePath());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static void copyDirectory(File from, File to) throws IOException
+    {
+        if (!to.isDirectory() && !to.mkdirs())
+        {
+            throw new IOException("Unable to create directory " + to.getAbsolutePath());
+        }
+
+        for (File file : from.listFiles())
+        {
+            File target = new File(to, file.getName());
+            if (file.isDirectory())
+            {
+                copyDirectory(file, target);
+            }
+            else
+            {
+                copyFile(file, target);
+            }
+        }
+    }
+
+    private static void copyFile(File from, File to) throws IOException
+    {
+        FileChannel in = new FileInputStream(from).getChannel();
+        try
+        {
+            FileChannel out = new FileOutputStream(to).getChannel();
+            try
+            {
+                long position = 0;
+                long size = in.size();
+                while (position < size)
+                {
+                    position += in.transferTo(position, size - position, out);
+                }
+            } finally
+            {
+                out.close();
+            }
+        } finally
+        {
+            in.close();
+        }
+    }
+
+    private static void deleteDirectory(File dir)
+    {
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (file.isDirectory())
+                {
+                    deleteDirectory(file);
+                }
+                else
+                {
+                    file.delete();
+                }
+            }
+        }
+        dir.delete();
+    }
+
+    private static File defaultCacheDir()
+    {
+        String configured = System.getProperty(CACHE_DIR_PROPERTY);
+        if (configured != null)
+        {
+            return new File(configured);
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "neo4j-koans-universes");
+    }
+}
@@ -0,0 +1,68 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Rates nodes 100/(distance+1), where distance is the lightest path from the Doctor once each
+ * relationship is weighed by its type, found with Dijkstra's algorithm over a primitive heap.
+ * Nodes further than the maximum distance are not rated.
+ */
+public class WeightedDistanceMetric implements AwesomenessMetric
+{
+    private final RelationshipWeights weights;
+    private final double maxDistance;
+
+    public WeightedDistanceMetric(RelationshipWeights weights)
+    {
+        this(weights, AwesomenessRatingEngine.MAX_HOPS);
+    }
+
+    public WeightedDistanceMetric(RelationshipWeights weights, double maxDistance)
+    {
+        this.weights = weights;
+        this.maxDistance = maxDistance;
+    }
+
+    public LongDoubleMap rateEverything(GraphDatabaseService db, Node theDoctor)
+    {
+        LongDoubleMap distances = new LongDoubleMap();
+        LongSet settled = new LongSet();
+        LongDoubleHeap closest = new LongDoubleHeap();
+
+        distances.put(theDoctor.getId(), 0);
+        closest.push(theDoctor.getId(), 0);
+        while (!closest.isEmpty())
+        {
+            double distance = closest.minPriority();
+            long nodeId = closest.popMin();
+            if (!settled.add(nodeId))
+            {
+                continue;
+            }
+
+            Node node = db.getNodeById(nodeId);
+            for (Relationship relationship : node.getRelationships())
+            {
+                long other = relationship.getOtherNode(node).getId();
+                double otherDistance = distance + weights.weightOf(relationship.getType());
+                if (otherDistance > maxDistance || settled.contains(other))
+                {
+                    continue;
+                }
+                if (otherDistance < distances.get(other, Double.POSITIVE_INFINITY))
+                {
+                    distances.put(other, otherDistance);
+                    closest.push(other, otherDistance);
+                }
+            }
+        }
+
+        for (long nodeId : distances.keys())
+        {
+            distances.put(nodeId, 100 / (distances.get(nodeId, 0) + 1));
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,117 @@
+package org.neo4j.tutorial.batch;
+
+import org.neo4j.graphdb.*;
+import org.neo4j.graphdb.event.KernelEventHandler;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.graphdb.index.IndexManager;
+import org.neo4j.index.impl.lucene.LuceneBatchInserterIndexProvider;
+import org.neo4j.kernel.impl.batchinsert.BatchInserter;
+import org.neo4j.kernel.impl.batchinsert.BatchInserterImpl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link GraphDatabaseService} that writes straight to the store files through a
+ * {@link BatchInserter}, so that the existing builders can bulk load a universe
+ * without a transaction log, locking or lucene commits. Transactions are no-ops,
+ * and the store is only consistent once {@link #shutdown()} has returned. Kernel event
+ * handlers are told about the shutdown; transaction event handlers never fire.
+ */
+public class BatchInsertGraphDatabase implements GraphDatabaseService
+{
+    private final BatchInserter inserter;
+    private final GraphDatabaseService graph;
+    private final LuceneBatchInserterIndexProvider indexProvider;
+    private final BatchInsertIndexManager indexManager;
+    private final List<KernelEventHandler> kernelEventHandlers = new CopyOnWriteArrayList<KernelEventHandler>();
+
+    public BatchInsertGraphDatabase(String dbDir)
+    {
+        this.inserter = new BatchInserterImpl(dbDir);
+        this.graph = inserter.getGraphDbService();
+        this.indexProvider = new LuceneBatchInserterIndexProvider(inserter);
+        this.indexManager = new BatchInsertIndexManager(indexProvider, this);
+    }
+
+    public Node createNode()
+    {
+        return graph.createNode();
+    }
+
+    public Node getNodeById(long id)
+    {
+        return graph.getNodeById(id);
+    }
+
+    public Relationship getRelationshipById(long id)
+    {
+        return graph.getRelationshipById(id);
+    }
+
+    public Node getReferenceNode()
+    {
+        return graph.getReferenceNode();
+    }
+
+    @SuppressWarnings("deprecation")
+    public Iterable<Node> getAllNodes()
+    {
+        return graph.getAllNodes();
+    }
+
+    @SuppressWarnings("deprecation")
+    public Iterable<RelationshipType> getRelationshipTypes()
+    {
+        return graph.getRelationshipTypes();
+    }
+
+    public void shutdown()
+    {
+        for (KernelEventHandler handler : kernelEventHandlers)
+        {
+            handler.beforeShutdown();
+        }
+        indexProvider.shutdown();
+        graph.shutdown();
+    }
+
+    public Transaction beginTx()
+    {
+        return graph.beginTx();
+    }
+
+    public <T> TransactionEventHandler<T> registerTransactionEventHandler(TransactionEventHandler<T> handler)
+    {
+        // There are no transactions to observe: nothing is ever committed or rolled back
+        return handler;
+    }
+
+    public <T> TransactionEventHandler<T> unregisterTransactionEventHandler(TransactionEventHandler<T> handler)
+    {
+        return handler;
+    }
+
+    public KernelEventHandler registerKernelEventHandler(KernelEventHandler handler)
+    {
+        if (!kernelEventHandlers.contains(handler))
+        {
+            kernelEventHandlers.add(handler);
+        }
+        return handler;
+    }
+
+    public KernelEventHandler unregisterKernelEventHandler(KernelEventHandler handler)
+    {
+        if (!kernelEventHandlers.remove(handler))
+        {
+            throw new IllegalStateException(handler + " isn't registered");
+        }
+        return handler;
+    }
+
+    public IndexManager index()
+    {
+        return indexManager;
+    }
+}
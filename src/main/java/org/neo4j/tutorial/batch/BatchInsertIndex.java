@@ -0,0 +1,276 @@
+package org.neo4j.tutorial.batch;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.index.BatchInserterIndex;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes index entries through to lucene, but answers exact lookups from memory since
+ * a batch inserter index only sees what has been flushed. Every entity has one lucene
+ * document holding all of its entries, which is rewritten when an entry is removed.
+ */
+abstract class BatchInsertIndex<T extends PropertyContainer> implements Index<T>
+{
+    private final String name;
+    private final BatchInserterIndex index;
+    private final GraphDatabaseService db;
+    private final Map<String, List<Long>> entries = new HashMap<String, List<Long>>();
+    private final Map<Long, Map<String, List<Object>>> entriesOfEntity = new HashMap<Long, Map<String, List<Object>>>();
+    private boolean deleted = false;
+
+    BatchInsertIndex(String name, BatchInserterIndex index, GraphDatabaseService db)
+    {
+        this.name = name;
+        this.index = index;
+        this.db = db;
+    }
+
+    abstract T entity(long id);
+
+    abstract long idOf(T entity);
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public GraphDatabaseService getGraphDatabase()
+    {
+        return db;
+    }
+
+    public boolean isWriteable()
+    {
+        return true;
+    }
+
+    public synchronized IndexHits<T> get(String key, Object value)
+    {
+        assertNotDeleted();
+        List<T> found = new ArrayList<T>();
+        List<Long> ids = entries.get(entryKey(key, value));
+        if (ids != null)
+        {
+            for (Long id : ids)
+            {
+                found.add(entity(id));
+            }
+        }
+        return new BatchInsertIndexHits<T>(found);
+    }
+
+    public synchronized IndexHits<T> query(String key, Object queryOrQueryObject)
+    {
+        assertNotDeleted();
+        index.flush();
+        return entities(index.query(key, queryOrQueryObject));
+    }
+
+    public synchronized IndexHits<T> query(Object queryOrQueryObject)
+    {
+        assertNotDeleted();
+        index.flush();
+        return entities(index.query(queryOrQueryObject));
+    }
+
+    public synchronized void add(T entity, String key, Object value)
+    {
+        assertNotDeleted();
+        long id = idOf(entity);
+        String entryKey = entryKey(key, value);
+        List<Long> ids = entries.get(entryKey);
+        if (ids == null)
+        {
+            ids = new ArrayList<Long>(1);
+            entries.put(entryKey, ids);
+        }
+        if (ids.contains(id))
+        {
+            return;
+        }
+        ids.add(id);
+
+        Map<String, List<Object>> ofEntity = entriesOfEntity.get(id);
+        if (ofEntity == null)
+        {
+            ofEntity = new LinkedHashMap<String, List<Object>>();
+            entriesOfEntity.put(id, ofEntity);
+            valuesOf(ofEntity, key).add(value);
+            index.add(id, document(ofEntity));
+        } else
+        {
+            valuesOf(ofEntity, key).add(value);
+            index.updateOrAdd(id, document(ofEntity));
+        }
+    }
+
+    public synchronized T putIfAbsent(T entity, String key, Object value)
+    {
+        assertNotDeleted();
+        List<Long> ids = entries.get(entryKey(key, value));
+        if (ids != null && !ids.isEmpty())
+        {
+            return entity(ids.get(0));
+        }
+        add(entity, key, value);
+        return null;
+    }
+
+    public synchronized void remove(T entity, String key, Object value)
+    {
+        assertNotDeleted();
+        long id = idOf(entity);
+        Map<String, List<Object>> ofEntity = entriesOfEntity.get(id);
+        if (ofEntity == null || !ofEntity.containsKey(key))
+        {
+            return;
+        }
+        List<Object> values = ofEntity.get(key);
+        if (!values.remove(value))
+        {
+            return;
+        }
+        forget(id, key, value);
+        if (values.isEmpty())
+        {
+            ofEntity.remove(key);
+        }
+        rewrite(id, ofEntity);
+    }
+
+    public synchronized void remove(T entity, String key)
+    {
+        assertNotDeleted();
+        long id = idOf(entity);
+        Map<String, List<Object>> ofEntity = entriesOfEntity.get(id);
+        if (ofEntity == null || !ofEntity.containsKey(key))
+        {
+            return;
+        }
+        for (Object value : ofEntity.remove(key))
+        {
+            forget(id, key, value);
+        }
+        rewrite(id, ofEntity);
+    }
+
+    public synchronized void remove(T entity)
+    {
+        assertNotDeleted();
+        long id = idOf(entity);
+        Map<String, List<Object>> ofEntity = entriesOfEntity.get(id);
+        if (ofEntity == null)
+        {
+            return;
+        }
+        for (Map.Entry<String, List<Object>> entry : ofEntity.entrySet())
+        {
+            for (Object value : entry.getValue())
+            {
+                forget(id, entry.getKey(), value);
+            }
+        }
+        ofEntity.clear();
+        rewrite(id, ofEntity);
+    }
+
+    /**
+     * Removes every entry. A batch inserter cannot drop the index files, so an empty index
+     * of this name is left behind in the store.
+     */
+    public synchronized void delete()
+    {
+        assertNotDeleted();
+        for (Long id : entriesOfEntity.keySet())
+        {
+            index.updateOrAdd(id, Collections.<String, Object>emptyMap());
+        }
+        index.flush();
+        entries.clear();
+        entriesOfEntity.clear();
+        deleted = true;
+    }
+
+    private void forget(long id, String key, Object value)
+    {
+        String entryKey = entryKey(key, value);
+        List<Long> ids = entries.get(entryKey);
+        ids.remove(id);
+        if (ids.isEmpty())
+        {
+            entries.remove(entryKey);
+        }
+    }
+
+    private void rewrite(long id, Map<String, List<Object>> ofEntity)
+    {
+        index.updateOrAdd(id, document(ofEntity));
+        if (ofEntity.isEmpty())
+        {
+            entriesOfEntity.remove(id);
+        }
+    }
+
+    private IndexHits<T> entities(IndexHits<Long> ids)
+    {
+        List<T> found = new ArrayList<T>();
+        try
+        {
+            for (Long id : ids)
+            {
+                found.add(entity(id));
+            }
+        } finally
+        {
+            ids.close();
+        }
+        return new BatchInsertIndexHits<T>(found);
+    }
+
+    private void assertNotDeleted()
+    {
+        if (deleted)
+        {
+            throw new IllegalStateException(String.format("Index [%s] has been deleted", name));
+        }
+    }
+
+    private static List<Object> valuesOf(Map<String, List<Object>> ofEntity, String key)
+    {
+        List<Object> values = ofEntity.get(key);
+        if (values == null)
+        {
+            values = new ArrayList<Object>(1);
+            ofEntity.put(key, values);
+        }
+        return values;
+    }
+
+    /**
+     * The lucene document for an entity; a key with several values is indexed under each of them.
+     */
+    private static Map<String, Object> document(Map<String, List<Object>> ofEntity)
+    {
+        Map<String, Object> document = new HashMap<String, Object>();
+        for (Map.Entry<String, List<Object>> entry : ofEntity.entrySet())
+        {
+            List<Object> values = entry.getValue();
+            document.put(entry.getKey(), values.size() == 1 ? values.get(0) : values.toArray());
+        }
+        return document;
+    }
+
+    private static String entryKey(String key, Object value)
+    {
+        return key + "=" + value;
+    }
+}
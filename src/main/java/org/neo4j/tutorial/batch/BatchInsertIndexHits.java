@@ -0,0 +1,62 @@
+package org.neo4j.tutorial.batch;
+
+import org.neo4j.graphdb.index.IndexHits;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+class BatchInsertIndexHits<T> implements IndexHits<T>
+{
+    private final List<T> hits;
+    private final Iterator<T> iterator;
+
+    BatchInsertIndexHits(List<T> hits)
+    {
+        this.hits = hits;
+        this.iterator = hits.iterator();
+    }
+
+    public int size()
+    {
+        return hits.size();
+    }
+
+    public void close()
+    {
+    }
+
+    public T getSingle()
+    {
+        if (hits.size() > 1)
+        {
+            throw new NoSuchElementException("More than one entity found in index");
+        }
+        return hits.isEmpty() ? null : hits.get(0);
+    }
+
+    public float currentScore()
+    {
+        return 1.0f;
+    }
+
+    public Iterator<T> iterator()
+    {
+        return this;
+    }
+
+    public boolean hasNext()
+    {
+        return iterator.hasNext();
+    }
+
+    public T next()
+    {
+        return iterator.next();
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+}
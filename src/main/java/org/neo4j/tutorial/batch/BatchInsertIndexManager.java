@@ -0,0 +1,104 @@
+package org.neo4j.tutorial.batch;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.*;
+import org.neo4j.helpers.collection.MapUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class BatchInsertIndexManager implements IndexManager
+{
+    private static final Map<String, String> EXACT = MapUtil.stringMap("type", "exact");
+
+    private final BatchInserterIndexProvider indexProvider;
+    private final GraphDatabaseService db;
+    private final Map<String, BatchInsertNodeIndex> nodeIndexes = new HashMap<String, BatchInsertNodeIndex>();
+    private final Map<String, BatchInsertRelationshipIndex> relationshipIndexes = new HashMap<String, BatchInsertRelationshipIndex>();
+
+    BatchInsertIndexManager(BatchInserterIndexProvider indexProvider, GraphDatabaseService db)
+    {
+        this.indexProvider = indexProvider;
+        this.db = db;
+    }
+
+    public synchronized boolean existsForNodes(String indexName)
+    {
+        return nodeIndexes.containsKey(indexName);
+    }
+
+    public synchronized Index<Node> forNodes(String indexName)
+    {
+        BatchInsertNodeIndex index = nodeIndexes.get(indexName);
+        if (index == null)
+        {
+            index = new BatchInsertNodeIndex(indexName, indexProvider.nodeIndex(indexName, EXACT), db);
+            nodeIndexes.put(indexName, index);
+        }
+        return index;
+    }
+
+    public Index<Node> forNodes(String indexName, Map<String, String> customConfiguration)
+    {
+        return forNodes(indexName);
+    }
+
+    public synchronized String[] nodeIndexNames()
+    {
+        return nodeIndexes.keySet().toArray(new String[nodeIndexes.size()]);
+    }
+
+    public synchronized boolean existsForRelationships(String indexName)
+    {
+        return relationshipIndexes.containsKey(indexName);
+    }
+
+    public synchronized RelationshipIndex forRelationships(String indexName)
+    {
+        BatchInsertRelationshipIndex index = relationshipIndexes.get(indexName);
+        if (index == null)
+        {
+            index = new BatchInsertRelationshipIndex(indexName, indexProvider.relationshipIndex(indexName, EXACT), db);
+            relationshipIndexes.put(indexName, index);
+        }
+        return index;
+    }
+
+    public RelationshipIndex forRelationships(String indexName, Map<String, String> customConfiguration)
+    {
+        return forRelationships(indexName);
+    }
+
+    public synchronized String[] relationshipIndexNames()
+    {
+        return relationshipIndexes.keySet().toArray(new String[relationshipIndexes.size()]);
+    }
+
+    public Map<String, String> getConfiguration(Index<? extends PropertyContainer> index)
+    {
+        return EXACT;
+    }
+
+    public String setConfiguration(Index<? extends PropertyContainer> index, String key, String value)
+    {
+        throw new UnsupportedOperationException("Index configuration is fixed during batch insertion");
+    }
+
+    public String removeConfiguration(Index<? extends PropertyContainer> index, String key)
+    {
+        throw new UnsupportedOperationException("Index configuration is fixed during batch insertion");
+    }
+
+    public AutoIndexer<Node> getNodeAutoIndexer()
+    {
+        throw new UnsupportedOperationException("Auto indexing is not supported during batch insertion");
+    }
+
+    public RelationshipAutoIndexer getRelationshipAutoIndexer()
+    {
+        throw new UnsupportedOperationException("Auto indexing is not supported during batch insertion");
+    }
+}
@@ -0,0 +1,28 @@
+package org.neo4j.tutorial.batch;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.index.BatchInserterIndex;
+
+class BatchInsertNodeIndex extends BatchInsertIndex<Node>
+{
+    BatchInsertNodeIndex(String name, BatchInserterIndex index, GraphDatabaseService db)
+    {
+        super(name, index, db);
+    }
+
+    public Class<Node> getEntityType()
+    {
+        return Node.class;
+    }
+
+    Node entity(long id)
+    {
+        return getGraphDatabase().getNodeById(id);
+    }
+
+    long idOf(Node entity)
+    {
+        return entity.getId();
+    }
+}
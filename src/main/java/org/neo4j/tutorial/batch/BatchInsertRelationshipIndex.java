@@ -0,0 +1,68 @@
+package org.neo4j.tutorial.batch;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.BatchInserterIndex;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.graphdb.index.RelationshipIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class BatchInsertRelationshipIndex extends BatchInsertIndex<Relationship> implements RelationshipIndex
+{
+    BatchInsertRelationshipIndex(String name, BatchInserterIndex index, GraphDatabaseService db)
+    {
+        super(name, index, db);
+    }
+
+    public Class<Relationship> getEntityType()
+    {
+        return Relationship.class;
+    }
+
+    public IndexHits<Relationship> get(String key, Object valueOrNull, Node startNodeOrNull, Node endNodeOrNull)
+    {
+        return between(get(key, valueOrNull), startNodeOrNull, endNodeOrNull);
+    }
+
+    public IndexHits<Relationship> query(String key, Object queryOrQueryObjectOrNull, Node startNodeOrNull,
+                                         Node endNodeOrNull)
+    {
+        return between(query(key, queryOrQueryObjectOrNull), startNodeOrNull, endNodeOrNull);
+    }
+
+    public IndexHits<Relationship> query(Object queryOrQueryObjectOrNull, Node startNodeOrNull, Node endNodeOrNull)
+    {
+        return between(query(queryOrQueryObjectOrNull), startNodeOrNull, endNodeOrNull);
+    }
+
+    Relationship entity(long id)
+    {
+        return getGraphDatabase().getRelationshipById(id);
+    }
+
+    long idOf(Relationship entity)
+    {
+        return entity.getId();
+    }
+
+    private static IndexHits<Relationship> between(IndexHits<Relationship> hits, Node startNode, Node endNode)
+    {
+        List<Relationship> found = new ArrayList<Relationship>();
+        for (Relationship relationship : hits)
+        {
+            if (matches(startNode, relationship.getStartNode()) && matches(endNode, relationship.getEndNode()))
+            {
+                found.add(relationship);
+            }
+        }
+        return new BatchInsertIndexHits<Relationship>(found);
+    }
+
+    private static boolean matches(Node wanted, Node actual)
+    {
+        return wanted == null || wanted.equals(actual);
+    }
+}
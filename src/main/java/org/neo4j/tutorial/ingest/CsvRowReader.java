@@ -0,0 +1,123 @@
+package org.neo4j.tutorial.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads RFC 4180 style CSV, one record at a time, with column names taken from the first record.
+ * Quoted fields may contain commas, doubled quotes and line breaks. Empty fields are left out of
+ * the row, and list-valued columns separate their values with semicolons.
+ */
+class CsvRowReader implements RowReader
+{
+    private final BufferedReader reader;
+    private final List<String> header;
+
+    CsvRowReader(BufferedReader reader) throws IOException
+    {
+        this.reader = reader;
+        this.header = readRecord();
+        if (header == null)
+        {
+            throw new IOException("CSV input has no header row");
+        }
+    }
+
+    public Map<String, Object> next() throws IOException
+    {
+        List<String> record;
+        do
+        {
+            record = readRecord();
+            if (record == null)
+            {
+                return null;
+            }
+        }
+        while (record.size() == 1 && record.get(0).length() == 0);
+
+        Map<String, Object> row = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < record.size() && i < header.size(); i++)
+        {
+            if (record.get(i).length() > 0)
+            {
+                row.put(header.get(i), record.get(i));
+            }
+        }
+        return row;
+    }
+
+    private List<String> readRecord() throws IOException
+    {
+        int c = reader.read();
+        if (c == -1)
+        {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1)
+        {
+            if (quoted)
+            {
+                if (c == '"')
+                {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"')
+                    {
+                        field.append('"');
+                    }
+                    else
+                    {
+                        quoted = false;
+                        if (next != -1)
+                        {
+                            reader.reset();
+                        }
+                    }
+                }
+                else
+                {
+                    field.append((char) c);
+                }
+            }
+            else if (c == '"')
+            {
+                quoted = true;
+            }
+            else if (c == ',')
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else if (c == '\n')
+            {
+                break;
+            }
+            else if (c != '\r')
+            {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+
+        if (quoted)
+        {
+            throw new IOException("Unterminated quoted field in CSV input");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+}
@@ -0,0 +1,25 @@
+package org.neo4j.tutorial.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+public enum ImportFormat
+{
+    JSON_LINES
+    {
+        public RowReader rowsFrom(Reader reader)
+        {
+            return new JsonLinesRowReader(new BufferedReader(reader));
+        }
+    },
+    CSV
+    {
+        public RowReader rowsFrom(Reader reader) throws IOException
+        {
+            return new CsvRowReader(new BufferedReader(reader));
+        }
+    };
+
+    public abstract RowReader rowsFrom(Reader reader) throws IOException;
+}
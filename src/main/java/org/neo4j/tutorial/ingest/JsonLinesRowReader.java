@@ -0,0 +1,52 @@
+package org.neo4j.tutorial.ingest;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads one JSON object per line. Blank lines are skipped.
+ */
+class JsonLinesRowReader implements RowReader
+{
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private int lineNumber = 0;
+
+    JsonLinesRowReader(BufferedReader reader)
+    {
+        this.reader = reader;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> next() throws IOException
+    {
+        String line;
+        do
+        {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null)
+            {
+                return null;
+            }
+        }
+        while (line.trim().length() == 0);
+
+        try
+        {
+            return mapper.readValue(line, Map.class);
+        } catch (IOException e)
+        {
+            throw new IOException(String.format("Invalid JSON on line %d: %s", lineNumber, e.getMessage()));
+        }
+    }
+
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+}
@@ -0,0 +1,16 @@
+package org.neo4j.tutorial.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads one row at a time from an import source, so that only the current row is held in memory.
+ */
+public interface RowReader extends Closeable
+{
+    /**
+     * @return the next row keyed by column or field name, or null when there are no more rows
+     */
+    Map<String, Object> next() throws IOException;
+}
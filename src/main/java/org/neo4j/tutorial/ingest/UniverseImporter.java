@@ -0,0 +1,304 @@
+package org.neo4j.tutorial.ingest;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.tutorial.CharacterBuilder;
+import org.neo4j.tutorial.ChunkedTransaction;
+import org.neo4j.tutorial.CommitPolicy;
+import org.neo4j.tutorial.DalekPropBuilder;
+import org.neo4j.tutorial.EpisodeBuilder;
+import org.neo4j.tutorial.GenerationScope;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.neo4j.tutorial.CharacterBuilder.character;
+import static org.neo4j.tutorial.DalekPropBuilder.dalekProps;
+import static org.neo4j.tutorial.EpisodeBuilder.episode;
+
+/**
+ * Streams characters, episodes and Dalek props from {@link RowReader}s into the same builders that
+ * load the built-in universe, committing every batch of facts so that neither the input nor the
+ * transaction state has to fit in memory. The {@link GenerationScope} still remembers the node id of
+ * every indexed entity, every relationship it has ensured and every episode it has sequenced until
+ * it is closed, so memory grows with the size of the import. Each row is one fact, except for Dalek
+ * props, where each episode's run of rows is one fact.
+ * <p/>
+ * Character rows: character, species, companion, enemy, ally, loves, planet, things, regenerations,
+ * wikipedia. Regenerations are actor names, optionally followed by @year.
+ * <br/>
+ * Episode rows: episode, title, doctors, companions, enemies, enemySpecies, allies, alliedSpecies.
+ * <br/>
+ * Dalek prop rows: episode, shoulder, skirt, prop. Consecutive rows for the same episode make up
+ * that episode's props.
+ * <p/>
+ * List-valued fields are JSON arrays in JSON lines input and semicolon separated in CSV input.
+ * Episodes are linked NEXT/PREVIOUS in the order they are read, or in order of their episode numbers
+ * when {@link #withEpisodesSortedByNumber()} is set. Row readers are closed once read.
+ */
+public class UniverseImporter
+{
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final GraphDatabaseService db;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean episodesSortedByNumber = false;
+
+    public UniverseImporter(GraphDatabaseService db)
+    {
+        this.db = db;
+    }
+
+    public UniverseImporter withBatchSize(int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public UniverseImporter withEpisodesSortedByNumber()
+    {
+        this.episodesSortedByNumber = true;
+        return this;
+    }
+
+    public int importCharacters(RowReader rows) throws IOException
+    {
+        return importRows(rows, new RowHandler()
+        {
+            public void start()
+            {
+            }
+
+            public void handle(Map<String, Object> row)
+            {
+                CharacterBuilder builder = character(required(row, "character"));
+                for (String species : strings(row, "species"))
+                {
+                    builder.isA(species);
+                }
+                if (bool(row, "companion"))
+                {
+                    builder.isCompanion();
+                }
+                if (bool(row, "enemy"))
+                {
+                    builder.isEnemy();
+                }
+                if (bool(row, "ally"))
+                {
+                    builder.isAlly();
+                }
+                List<String> lovers = strings(row, "loves");
+                if (!lovers.isEmpty())
+                {
+                    builder.loves(lovers.toArray(new String[lovers.size()]));
+                }
+                if (row.get("planet") != null)
+                {
+                    builder.isFrom(string(row, "planet"));
+                }
+                List<String> things = strings(row, "things");
+                if (!things.isEmpty())
+                {
+                    builder.owns(things.toArray(new String[things.size()]));
+                }
+                for (String regeneration : strings(row, "regenerations"))
+                {
+                    int at = regeneration.lastIndexOf('@');
+                    if (at > 0)
+                    {
+                        builder.regeneration(regeneration.substring(0, at),
+                                             Integer.parseInt(regeneration.substring(at + 1).trim()));
+                    }
+                    else
+                    {
+                        builder.regeneration(regeneration);
+                    }
+                }
+                if (row.get("wikipedia") != null)
+                {
+                    builder.wikipedia(string(row, "wikipedia"));
+                }
+                builder.fact(db);
+            }
+
+            public void finish()
+            {
+            }
+        });
+    }
+
+    public int importEpisodes(RowReader rows) throws IOException
+    {
+        return importRows(rows, new RowHandler()
+        {
+            public void start()
+            {
+                GenerationScope.of(db).episodes().setSortedByEpisodeNumber(episodesSortedByNumber);
+            }
+
+            public void handle(Map<String, Object> row)
+            {
+                EpisodeBuilder builder = episode(required(row, "episode")).title(required(row, "title"));
+                for (String doctor : strings(row, "doctors"))
+                {
+                    builder.doctor(doctor);
+                }
+                builder.companion(array(row, "companions"));
+                builder.enemy(array(row, "enemies"));
+                builder.enemySpecies(array(row, "enemySpecies"));
+                builder.alliedSpecies(array(row, "alliedSpecies"));
+                if (row.get("allies") != null)
+                {
+                    builder.allies(array(row, "allies"));
+                }
+                builder.fact(db);
+            }
+
+            public void finish()
+            {
+                GenerationScope.of(db).episodes().finish(db);
+            }
+        });
+    }
+
+    public int importDalekProps(RowReader rows) throws IOException
+    {
+        return importRows(rows, new RowHandler()
+        {
+            private String currentEpisode = null;
+            private DalekPropBuilder currentProps = null;
+
+            public void start()
+            {
+            }
+
+            public void handle(Map<String, Object> row)
+            {
+                String episode = required(row, "episode");
+                if (!episode.equals(currentEpisode))
+                {
+                    finish();
+                    currentEpisode = episode;
+                    currentProps = dalekProps(episode);
+                }
+                currentProps.addProp(string(row, "shoulder"), string(row, "skirt"), string(row, "prop"));
+            }
+
+            public void finish()
+            {
+                if (currentProps != null)
+                {
+                    currentProps.fact(db);
+                    currentProps = null;
+                    currentEpisode = null;
+                }
+            }
+        });
+    }
+
+    private int importRows(RowReader rows, RowHandler handler) throws IOException
+    {
+        GenerationScope ownScope = GenerationScope.isOpen(db) ? null : GenerationScope.open(db, false);
+        int count = 0;
+        try
+        {
+            ChunkedTransaction tx = GenerationScope.of(db).beginTx(CommitPolicy.commitEvery(batchSize));
+            try
+            {
+                handler.start();
+                Map<String, Object> row;
+                while ((row = rows.next()) != null)
+                {
+                    handler.handle(row);
+                    count++;
+                }
+                handler.finish();
+                tx.success();
+            } finally
+            {
+                tx.finish();
+            }
+        } finally
+        {
+            rows.close();
+            if (ownScope != null)
+            {
+                ownScope.close();
+            }
+        }
+        return count;
+    }
+
+    private static String string(Map<String, Object> row, String key)
+    {
+        Object value = row.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    private static String required(Map<String, Object> row, String key)
+    {
+        String value = string(row, key);
+        if (value == null)
+        {
+            throw new IllegalArgumentException(String.format("Row is missing [%s]: %s", key, row));
+        }
+        return value;
+    }
+
+    private static boolean bool(Map<String, Object> row, String key)
+    {
+        Object value = row.get(key);
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+
+    private static List<String> strings(Map<String, Object> row, String key)
+    {
+        Object value = row.get(key);
+        if (value == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<String>();
+        if (value instanceof List)
+        {
+            for (Object element : (List<?>) value)
+            {
+                result.add(element.toString());
+            }
+        }
+        else
+        {
+            for (String element : value.toString().split(";"))
+            {
+                if (element.trim().length() > 0)
+                {
+                    result.add(element.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String[] array(Map<String, Object> row, String key)
+    {
+        List<String> values = strings(row, key);
+        return values.toArray(new String[values.size()]);
+    }
+
+    private interface RowHandler
+    {
+        void start();
+
+        void handle(Map<String, Object> row);
+
+        void finish();
+    }
+}
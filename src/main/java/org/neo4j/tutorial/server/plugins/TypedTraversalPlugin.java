@@ -0,0 +1,56 @@
+package org.neo4j.tutorial.server.plugins;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.server.plugins.Description;
+import org.neo4j.server.plugins.Name;
+import org.neo4j.server.plugins.Parameter;
+import org.neo4j.server.plugins.PluginTarget;
+import org.neo4j.server.plugins.ServerPlugin;
+import org.neo4j.server.plugins.Source;
+import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.server.rest.domain.JsonParseException;
+
+import java.util.Map;
+
+/**
+ * Runs traversals whose return filters are typed rather than written in JavaScript, so that they
+ * are evaluated as compiled Java on the server instead of being interpreted at every position.
+ */
+@Description("Traversals with typed return filters")
+public class TypedTraversalPlugin extends ServerPlugin
+{
+    @Name("traverse_nodes")
+    @Description("Traverses from this node, returning the nodes the typed return filter accepts")
+    @PluginTarget(Node.class)
+    public Iterable<Node> traverseNodes(@Source Node start,
+                                        @Description("A traversal description, as JSON")
+                                        @Parameter(name = "traversal") String traversal)
+    {
+        return TypedTraversals.describe(parse(traversal))
+                              .traverse(start)
+                              .nodes();
+    }
+
+    @Name("traverse_paths")
+    @Description("Traverses from this node, returning the paths the typed return filter accepts")
+    @PluginTarget(Node.class)
+    public Iterable<Path> traversePaths(@Source Node start,
+                                        @Description("A traversal description, as JSON")
+                                        @Parameter(name = "traversal") String traversal)
+    {
+        return TypedTraversals.describe(parse(traversal))
+                              .traverse(start);
+    }
+
+    private static Map<String, Object> parse(String traversal)
+    {
+        try
+        {
+            return JsonHelper.jsonToMap(traversal);
+        } catch (JsonParseException e)
+        {
+            throw new IllegalArgumentException("Traversal description is not valid JSON", e);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package org.neo4j.tutorial.server.plugins;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.Evaluators;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.helpers.Predicate;
+import org.neo4j.kernel.Traversal;
+import org.neo4j.kernel.Uniqueness;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a traversal description sent over REST, with a typed return filter in place of a JavaScript
+ * body, into an embedded traversal. The filter is compiled once into predicates over paths, so
+ * deciding whether to return a position costs a few property and type lookups.
+ */
+class TypedTraversals
+{
+    static TraversalDescription describe(Map<String, Object> description)
+    {
+        TraversalDescription traversal = Traversal.description();
+
+        if ("breadth_first".equals(description.get("order")))
+        {
+            traversal = traversal.breadthFirst();
+        } else
+        {
+            traversal = traversal.depthFirst();
+        }
+
+        Object uniqueness = description.get("uniqueness");
+        if (uniqueness != null)
+        {
+            traversal = traversal.uniqueness(uniquenessOf(uniqueness.toString()));
+        }
+
+        Object relationships = description.get("relationships");
+        if (relationships != null)
+        {
+            for (Map<String, Object> relationship : listOfMaps(relationships))
+            {
+                traversal = traversal.relationships(DynamicRelationshipType.withName((String) relationship.get("type")),
+                                                    directionOf((String) relationship.get("direction")));
+            }
+        }
+
+        Object maxDepth = description.get("max_depth");
+        traversal = traversal.evaluator(Evaluators.toDepth(maxDepth == null ? 1 : ((Number) maxDepth).intValue()));
+
+        Object returnFilter = description.get("return_filter");
+        if (returnFilter != null)
+        {
+            final Predicate<Path> returned = compile(asMap(returnFilter));
+            traversal = traversal.evaluator(new Evaluator()
+            {
+                public Evaluation evaluate(Path path)
+                {
+                    return returned.accept(path) ? Evaluation.INCLUDE_AND_CONTINUE : Evaluation.EXCLUDE_AND_CONTINUE;
+                }
+            });
+        }
+        return traversal;
+    }
+
+    static Predicate<Path> compile(Map<String, Object> filter)
+    {
+        Object language = filter.get("language");
+        if ("builtin".equals(language))
+        {
+            return builtin((String) filter.get("name"));
+        }
+        if (!"typed".equals(language))
+        {
+            throw new IllegalArgumentException(String.format(
+                    "Only builtin and typed return filters can be compiled, not [%s]", language));
+        }
+
+        String type = (String) filter.get("type");
+        if ("property_equals".equals(type))
+        {
+            return propertyEquals((String) filter.get("key"), filter.get("value"));
+        }
+        if ("relationship_type_in".equals(type))
+        {
+            return relationshipTypeIn((List<?>) filter.get("types"));
+        }
+        if ("depth_between".equals(type))
+        {
+            return depthBetween(((Number) filter.get("min")).intValue(), ((Number) filter.get("max")).intValue());
+        }
+        if ("and".equals(type) || "or".equals(type) || "not".equals(type))
+        {
+            List<Predicate<Path>> operands = new ArrayList<Predicate<Path>>();
+            for (Map<String, Object> operand : listOfMaps(filter.get("filters")))
+            {
+                operands.add(compile(operand));
+            }
+            if ("and".equals(type))
+            {
+                return and(operands);
+            }
+            if ("or".equals(type))
+            {
+                return or(operands);
+            }
+            if (operands.size() != 1)
+            {
+                throw new IllegalArgumentException("A not filter takes exactly one filter");
+            }
+            return not(operands.get(0));
+        }
+        throw new IllegalArgumentException(String.format("Unknown return filter [%s]", type));
+    }
+
+    private static Predicate<Path> builtin(String name)
+    {
+        if ("all".equals(name))
+        {
+            return new Predicate<Path>()
+            {
+                public boolean accept(Path path)
+                {
+                    return true;
+                }
+            };
+        }
+        if ("all_but_start_node".equals(name))
+        {
+            return depthBetween(1, Integer.MAX_VALUE);
+        }
+        throw new IllegalArgumentException(String.format("Unknown builtin return filter [%s]", name));
+    }
+
+    private static Predicate<Path> propertyEquals(final String key, final Object value)
+    {
+        return new Predicate<Path>()
+        {
+            public boolean accept(Path path)
+            {
+                return sameValue(path.endNode()
+                                     .getProperty(key, null), value);
+            }
+        };
+    }
+
+    private static Predicate<Path> relationshipTypeIn(List<?> types)
+    {
+        final Set<String> names = new HashSet<String>();
+        for (Object type : types)
+        {
+            names.add(type.toString());
+        }
+        return new Predicate<Path>()
+        {
+            public boolean accept(Path path)
+            {
+                Relationship last = path.lastRelationship();
+                return last != null && names.contains(last.getType()
+                                                          .name());
+            }
+        };
+    }
+
+    private static Predicate<Path> depthBetween(final int minDepth, final int maxDepth)
+    {
+        return new Predicate<Path>()
+        {
+            public boolean accept(Path path)
+            {
+                return path.length() >= minDepth && path.length() <= maxDepth;
+            }
+        };
+    }
+
+    private static Predicate<Path> and(final List<Predicate<Path>> operands)
+    {
+        return new Predicate<Path>()
+        {
+            public boolean accept(Path path)
+            {
+                for (Predicate<Path> operand : operands)
+                {
+                    if (!operand.accept(path))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    private static Predicate<Path> or(final List<Predicate<Path>> operands)
+    {
+        return new Predicate<Path>()
+        {
+            public boolean accept(Path path)
+            {
+                for (Predicate<Path> operand : operands)
+                {
+                    if (operand.accept(path))
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    private static Predicate<Path> not(final Predicate<Path> operand)
+    {
+        return new Predicate<Path>()
+        {
+            public boolean accept(Path path)
+            {
+                return !operand.accept(path);
+            }
+        };
+    }
+
+    /**
+     * Compares a stored property with a value read from JSON, where whole numbers arrive as ints or
+     * longs whatever they were stored as, and arrays arrive as lists.
+     */
+    private static boolean sameValue(Object stored, Object expected)
+    {
+        if (stored == null || expected == null)
+        {
+            return stored == expected;
+        }
+        if (stored instanceof Number && expected instanceof Number)
+        {
+            if (isWhole(stored) && isWhole(expected))
+            {
+                return ((Number) stored).longValue() == ((Number) expected).longValue();
+            }
+            return ((Number) stored).doubleValue() == ((Number) expected).doubleValue();
+        }
+        if (stored.getClass()
+                  .isArray() && expected instanceof List)
+        {
+            List<?> elements = (List<?>) expected;
+            if (Array.getLength(stored) != elements.size())
+            {
+                return false;
+            }
+            for (int i = 0; i < elements.size(); i++)
+            {
+                if (!sameValue(Array.get(stored, i), elements.get(i)))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return stored.equals(expected);
+    }
+
+    private static boolean isWhole(Object number)
+    {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+
+    private static Uniqueness uniquenessOf(String name)
+    {
+        if ("node".equals(name))
+        {
+            return Uniqueness.NODE_GLOBAL;
+        }
+        if ("relationship".equals(name))
+        {
+            return Uniqueness.RELATIONSHIP_GLOBAL;
+        }
+        return Uniqueness.valueOf(name.toUpperCase());
+    }
+
+    private static Direction directionOf(String name)
+    {
+        if ("out".equals(name))
+        {
+            return Direction.OUTGOING;
+        }
+        if ("in".equals(name))
+        {
+            return Direction.INCOMING;
+        }
+        return Direction.BOTH;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value)
+    {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> listOfMaps(Object value)
+    {
+        return (List<Map<String, Object>>) value;
+    }
+}
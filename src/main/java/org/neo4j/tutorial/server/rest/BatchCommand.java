@@ -0,0 +1,331 @@
+package org.neo4j.tutorial.server.rest;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.server.rest.domain.JsonParseException;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One job of a request to the REST API's /batch endpoint. A job can refer to what an earlier job in
+ * the same batch created by writing its job id in braces, as in "{1}/relationships". Only the places
+ * that hold a URI are read for references: where the job is addressed, and the URI in the body of
+ * a relationship or index entry. Property values are left alone, braces and all.
+ */
+public class BatchCommand
+{
+    private static final Pattern JOB_REFERENCE = Pattern.compile("\\{(\\d+)\\}");
+
+    private final String method;
+    private final String to;
+    private final Object body;
+    private final Integer jobId;
+    private final String uriInBody;
+
+    public BatchCommand(String method, String to, Object body, Integer jobId)
+    {
+        this(method, to, body, jobId, null);
+    }
+
+    /**
+     * @param uriInBody the field of the body that holds a URI, or null if there is none
+     */
+    private BatchCommand(String method, String to, Object body, Integer jobId, String uriInBody)
+    {
+        this.method = method;
+        this.to = to;
+        this.body = body;
+        this.jobId = jobId;
+        this.uriInBody = uriInBody;
+    }
+
+    public static BatchCommand createNode(Integer jobId, Map<String, String> properties)
+    {
+        return new BatchCommand("POST", "/node", bodyOf(properties), jobId);
+    }
+
+    public static BatchCommand createRelationship(Integer jobId, String startNodeRelationshipUri, String endNodeUri,
+                                                  String relType, Map<String, String> data)
+    {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("to", endNodeUri);
+        body.put("type", relType);
+        if (data != null && !data.isEmpty())
+        {
+            body.put("data", bodyOf(data));
+        }
+        return new BatchCommand("POST", startNodeRelationshipUri, body, jobId, "to");
+    }
+
+    public static BatchCommand delete(String uri)
+    {
+        return new BatchCommand("DELETE", uri, null, null);
+    }
+
+    /**
+     * Replaces all the properties of the node or relationship at the given URI.
+     */
+    public static BatchCommand setProperties(Integer jobId, String entityUri, Map<String, ?> properties)
+    {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        if (properties != null)
+        {
+            body.putAll(properties);
+        }
+        return new BatchCommand("PUT", entityUri + "/properties", body, jobId);
+    }
+
+    public static BatchCommand setProperty(Integer jobId, String entityUri, String key, Object value)
+    {
+        return new BatchCommand("PUT", entityUri + "/properties/" + encode(key), value, jobId);
+    }
+
+    public static BatchCommand removeProperty(Integer jobId, String entityUri, String key)
+    {
+        return new BatchCommand("DELETE", entityUri + "/properties/" + encode(key), null, jobId);
+    }
+
+    public static BatchCommand addToNodeIndex(Integer jobId, String indexName, String key, Object value, String nodeUri)
+    {
+        return addToIndex(jobId, "node", indexName, key, value, nodeUri);
+    }
+
+    public static BatchCommand addToRelationshipIndex(Integer jobId, String indexName, String key, Object value,
+                                                      String relationshipUri)
+    {
+        return addToIndex(jobId, "relationship", indexName, key, value, relationshipUri);
+    }
+
+    public static BatchCommand removeFromNodeIndex(Integer jobId, String indexName, String key, Object value, long nodeId)
+    {
+        return removeFromIndex(jobId, "node", indexName, key, value, nodeId);
+    }
+
+    public static BatchCommand removeFromRelationshipIndex(Integer jobId, String indexName, String key, Object value,
+                                                           long relationshipId)
+    {
+        return removeFromIndex(jobId, "relationship", indexName, key, value, relationshipId);
+    }
+
+    /**
+     * Traverses from the node at the given URI, returning "node", "relationship", "path" or
+     * "fullpath" results.
+     */
+    public static BatchCommand traverse(Integer jobId, String nodeUri, String returnType, TraversalDescription traversal)
+    {
+        traversal.assertPlainTraversal();
+        try
+        {
+            return new BatchCommand("POST", nodeUri + "/traverse/" + returnType, JsonHelper.jsonToMap(traversal.toJson()),
+                                    jobId);
+        } catch (JsonParseException e)
+        {
+            throw new IllegalArgumentException("Traversal description is not valid JSON", e);
+        }
+    }
+
+    private static BatchCommand addToIndex(Integer jobId, String entityType, String indexName, String key, Object value,
+                                           String entityUri)
+    {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("key", key);
+        body.put("value", value);
+        body.put("uri", entityUri);
+        return new BatchCommand("POST", "/index/" + entityType + "/" + encode(indexName), body, jobId, "uri");
+    }
+
+    private static BatchCommand removeFromIndex(Integer jobId, String entityType, String indexName, String key,
+                                                Object value, long entityId)
+    {
+        return new BatchCommand("DELETE", "/index/" + entityType + "/" + encode(indexName) + "/" + encode(key) + "/"
+                + encode(String.valueOf(value)) + "/" + entityId, null, jobId);
+    }
+
+    private static String encode(String pathSegment)
+    {
+        try
+        {
+            return URLEncoder.encode(pathSegment, "UTF-8")
+                             .replace("+", "%20");
+        } catch (UnsupportedEncodingException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    public String getTo()
+    {
+        return to;
+    }
+
+    public Object getBody()
+    {
+        return body;
+    }
+
+    public Integer getJobId()
+    {
+        return jobId;
+    }
+
+    /**
+     * The ids of the earlier jobs this one refers to.
+     */
+    public SortedSet<Integer> references()
+    {
+        SortedSet<Integer> references = new TreeSet<Integer>();
+        collectReferences(to, references);
+        collectReferences(uriInBody(), references);
+        return references;
+    }
+
+    /**
+     * This command with its references to the given jobs replaced by what they created: a path
+     * relative to the data root where the command is addressed, and the full URI inside its body.
+     */
+    public BatchCommand resolve(Map<Integer, String> locations, String dataUri)
+    {
+        Map<Integer, String> paths = new LinkedHashMap<Integer, String>();
+        for (Map.Entry<Integer, String> location : locations.entrySet())
+        {
+            String uri = location.getValue();
+            paths.put(location.getKey(), uri.startsWith(dataUri) ? "/" + uri.substring(dataUri.length()) : uri);
+        }
+        Object resolvedBody = body;
+        String uri = uriInBody();
+        if (uri != null)
+        {
+            Map<Object, Object> replaced = new LinkedHashMap<Object, Object>((Map<?, ?>) body);
+            replaced.put(uriInBody, replace(uri, locations));
+            resolvedBody = replaced;
+        }
+        return new BatchCommand(method, replace(to, paths), resolvedBody, jobId, uriInBody);
+    }
+
+    private String uriInBody()
+    {
+        if (uriInBody == null || !(body instanceof Map))
+        {
+            return null;
+        }
+        Object uri = ((Map<?, ?>) body).get(uriInBody);
+        return uri instanceof String ? (String) uri : null;
+    }
+
+    void writeTo(JsonGenerator json) throws IOException
+    {
+        json.writeStartObject();
+        json.writeStringField("method", method);
+        json.writeStringField("to", to);
+        if (body != null)
+        {
+            json.writeFieldName("body");
+            writeValue(json, body);
+        }
+        if (jobId != null)
+        {
+            json.writeNumberField("id", jobId);
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator json, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            json.writeNull();
+        } else if (value instanceof String)
+        {
+            json.writeString((String) value);
+        } else if (value instanceof Boolean)
+        {
+            json.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+        {
+            json.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number)
+        {
+            json.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Map)
+        {
+            json.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                json.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(json, entry.getValue());
+            }
+            json.writeEndObject();
+        } else if (value instanceof Collection)
+        {
+            json.writeStartArray();
+            for (Object element : (Collection<?>) value)
+            {
+                writeValue(json, element);
+            }
+            json.writeEndArray();
+        } else if (value instanceof Object[])
+        {
+            json.writeStartArray();
+            for (Object element : (Object[]) value)
+            {
+                writeValue(json, element);
+            }
+            json.writeEndArray();
+        } else
+        {
+            throw new IllegalArgumentException(String.format("Cannot write [%s] to a batch", value.getClass()
+                                                                                                   .getName()));
+        }
+    }
+
+    private static Map<String, Object> bodyOf(Map<String, String> properties)
+    {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        if (properties != null)
+        {
+            body.putAll(properties);
+        }
+        return body;
+    }
+
+    private static void collectReferences(String uri, Collection<Integer> references)
+    {
+        if (uri == null)
+        {
+            return;
+        }
+        Matcher matcher = JOB_REFERENCE.matcher(uri);
+        while (matcher.find())
+        {
+            references.add(Integer.valueOf(matcher.group(1)));
+        }
+    }
+
+    private static String replace(String uri, Map<Integer, String> replacements)
+    {
+        Matcher matcher = JOB_REFERENCE.matcher(uri);
+        StringBuffer replaced = new StringBuffer();
+        while (matcher.find())
+        {
+            String replacement = replacements.get(Integer.valueOf(matcher.group(1)));
+            matcher.appendReplacement(replaced, Matcher.quoteReplacement(
+                    replacement == null ? matcher.group() : replacement));
+        }
+        matcher.appendTail(replaced);
+        return replaced.toString();
+    }
+}
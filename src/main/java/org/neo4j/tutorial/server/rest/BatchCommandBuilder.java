@@ -1,108 +1,213 @@
 package org.neo4j.tutorial.server.rest;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Map;
 
-public class BatchCommandBuilder
+/**
+ * Builds the JSON body of a request to the REST API's /batch endpoint. Commands are written through
+ * a Jackson generator as they are added, so values are escaped properly.
+ * <p/>
+ * By default the commands are kept and {@link #build()} returns them as a string. A builder made by
+ * {@link #streamingTo(Writer)} or {@link #streamingTo(OutputStream)} writes each command straight to
+ * its target instead, so a batch of any size is sent in constant memory; {@link #close()} ends the
+ * batch and flushes it, but leaves the target open.
+ * <p/>
+ * Any URI given to a command can be a job reference such as "{1}", so a node created earlier in the
+ * batch can be given properties, indexed and related to in the same round trip.
+ */
+public class BatchCommandBuilder implements Closeable
 {
-    private static final String CreateNodeTemplate = "{\"method\":\"POST\",\"to\":\"/node\",\"body\":{%s}%s}";
-    private static final String CreateRelationshipTemplate = "{\"method\":\"POST\",\"to\":\"%s\",\"body\":{\"to\":\"%s\",\"type\":\"%s\"%s}%s}";
-    private static final String DeleteTemplate = "{\"method\":\"DELETE\",\"to\":\"%s\"}";
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final JsonGenerator json;
+    private final StringWriter buffer;
+    private boolean closed = false;
+
+    public BatchCommandBuilder()
+    {
+        this.buffer = new StringWriter();
+        this.json = start(createGenerator(buffer));
+    }
+
+    private BatchCommandBuilder(JsonGenerator json)
+    {
+        this.buffer = null;
+        this.json = start(json);
+    }
+
+    public static BatchCommandBuilder streamingTo(Writer writer)
+    {
+        return new BatchCommandBuilder(createGenerator(writer));
+    }
 
-    private final List<String> commands = new ArrayList<String>();
+    public static BatchCommandBuilder streamingTo(OutputStream out)
+    {
+        try
+        {
+            return new BatchCommandBuilder(jsonFactory.createJsonGenerator(out, JsonEncoding.UTF8));
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to stream batch commands", e);
+        }
+    }
 
     public BatchCommandBuilder createNode(int jobId, Map<String, String> bodyParams)
     {
-        return formatCreateNode(bodyParams, jobId);
+        return add(BatchCommand.createNode(jobId, bodyParams));
     }
 
     public BatchCommandBuilder createNode(Map<String, String> bodyParams)
     {
-        return formatCreateNode(bodyParams, null);
+        return add(BatchCommand.createNode(null, bodyParams));
     }
 
     public BatchCommandBuilder createRelationship(int jobId, String startNodeRelationshipUri, String endNodeUri, String relType, Map<String, String> dataParams)
     {
-        return formatCreateRelationship(startNodeRelationshipUri, endNodeUri, relType, dataParams, jobId);
+        return add(BatchCommand.createRelationship(jobId, startNodeRelationshipUri, endNodeUri, relType, dataParams));
     }
 
     public BatchCommandBuilder createRelationship(String startNodeRelationshipUri, String endNodeUri, String relType)
     {
-        return formatCreateRelationship(startNodeRelationshipUri, endNodeUri, relType, null, null);
+        return add(BatchCommand.createRelationship(null, startNodeRelationshipUri, endNodeUri, relType, null));
     }
 
     public BatchCommandBuilder createRelationship(String startNodeRelationshipUri, String endNodeUri, String relType, Map<String, String> dataParams)
     {
-        return formatCreateRelationship(startNodeRelationshipUri, endNodeUri, relType, dataParams, null);
+        return add(BatchCommand.createRelationship(null, startNodeRelationshipUri, endNodeUri, relType, dataParams));
     }
 
     public BatchCommandBuilder deleteNodeOrRelationship(String uri)
     {
-        commands.add(String.format(DeleteTemplate, uri));
-        return this;
+        return add(BatchCommand.delete(uri));
     }
 
-    private BatchCommandBuilder formatCreateNode(Map<String, String> bodyParams, Integer jobId)
+    public BatchCommandBuilder setProperties(String nodeOrRelationshipUri, Map<String, ?> properties)
     {
-        commands.add(String.format(CreateNodeTemplate, formatParams(bodyParams), formatJobId(jobId)));
-        return this;
+        return add(BatchCommand.setProperties(null, nodeOrRelationshipUri, properties));
+    }
+
+    public BatchCommandBuilder setProperty(String nodeOrRelationshipUri, String key, Object value)
+    {
+        return add(BatchCommand.setProperty(null, nodeOrRelationshipUri, key, value));
     }
 
-    private BatchCommandBuilder formatCreateRelationship(String startNodeRelationshipUri, String endNodeUri, String relType, Map<String, String> dataParams, Integer jobId)
+    public BatchCommandBuilder removeProperty(String nodeOrRelationshipUri, String key)
     {
-        commands.add(String.format(CreateRelationshipTemplate, startNodeRelationshipUri, endNodeUri, relType,
-                                   createData(dataParams), formatJobId(jobId)));
+        return add(BatchCommand.removeProperty(null, nodeOrRelationshipUri, key));
+    }
+
+    public BatchCommandBuilder addToNodeIndex(String indexName, String key, Object value, String nodeUri)
+    {
+        return add(BatchCommand.addToNodeIndex(null, indexName, key, value, nodeUri));
+    }
+
+    public BatchCommandBuilder addToRelationshipIndex(String indexName, String key, Object value, String relationshipUri)
+    {
+        return add(BatchCommand.addToRelationshipIndex(null, indexName, key, value, relationshipUri));
+    }
+
+    public BatchCommandBuilder removeFromNodeIndex(String indexName, String key, Object value, long nodeId)
+    {
+        return add(BatchCommand.removeFromNodeIndex(null, indexName, key, value, nodeId));
+    }
+
+    public BatchCommandBuilder removeFromRelationshipIndex(String indexName, String key, Object value, long relationshipId)
+    {
+        return add(BatchCommand.removeFromRelationshipIndex(null, indexName, key, value, relationshipId));
+    }
+
+    public BatchCommandBuilder traverse(int jobId, String nodeUri, String returnType, TraversalDescription traversal)
+    {
+        return add(BatchCommand.traverse(jobId, nodeUri, returnType, traversal));
+    }
+
+    public BatchCommandBuilder add(BatchCommand command)
+    {
+        checkOpen();
+        try
+        {
+            command.writeTo(json);
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to write batch command", e);
+        }
         return this;
     }
 
-    private String formatJobId(Integer jobId)
+    /**
+     * Pushes the commands written so far through to the target.
+     */
+    public void flush() throws IOException
     {
-        if (jobId == null)
+        json.flush();
+    }
+
+    /**
+     * The batch so far. More commands can still be added afterwards.
+     */
+    public String build()
+    {
+        if (buffer == null)
+        {
+            throw new IllegalStateException("A streaming batch is written to its target, not built");
+        }
+        try
+        {
+            json.flush();
+        } catch (IOException e)
         {
-            return "";
+            throw new RuntimeException("Unable to build batch", e);
         }
-        return String.format(",\"id\":%s", jobId);
+        return buffer.toString() + "]";
     }
 
-    private String createData(Map<String, String> dataParams)
+    public void close() throws IOException
     {
-        if (dataParams == null || dataParams.isEmpty())
+        if (!closed)
         {
-            return "";
+            closed = true;
+            json.writeEndArray();
+            json.close();
         }
-        return ",\"data\":{" + formatParams(dataParams) + "}";
     }
 
-    private String formatParams(Map<String, String> params)
+    private void checkOpen()
     {
-        if (params == null)
+        if (closed)
         {
-            return "";
+            throw new IllegalStateException("The batch has been closed");
         }
-        StringBuilder sb = new StringBuilder();
-        Iterator<String> keys = params.keySet().iterator();
-        while (keys.hasNext())
+    }
+
+    private static JsonGenerator createGenerator(Writer writer)
+    {
+        try
         {
-            String key = keys.next();
-            sb.append(String.format("\"%s\":\"%s\"", key, params.get(key)));
-            sb.append(keys.hasNext() ? "," : "");
+            return jsonFactory.createJsonGenerator(writer);
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to write batch commands", e);
         }
-        return sb.toString();
     }
 
-    public String build()
+    private static JsonGenerator start(JsonGenerator json)
     {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        Iterator<String> cmds = commands.iterator();
-        while (cmds.hasNext())
+        json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        try
+        {
+            json.writeStartArray();
+        } catch (IOException e)
         {
-            sb.append(cmds.next());
-            sb.append(cmds.hasNext() ? "," : "");
+            throw new RuntimeException("Unable to write batch commands", e);
         }
-        sb.append("]");
-        return sb.toString();
+        return json;
     }
-}
\ No newline at end of file
+}
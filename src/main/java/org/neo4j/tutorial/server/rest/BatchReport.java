@@ -0,0 +1,85 @@
+package org.neo4j.tutorial.server.rest;
+
+import java.util.Arrays;
+
+/**
+ * The chunks a batch was sent to the server in, with how many commands and bytes each carried and
+ * how long the server took to answer it.
+ */
+public class BatchReport
+{
+    private int[] commands = new int[16];
+    private long[] bytes = new long[16];
+    private long[] latencies = new long[16];
+    private int chunks = 0;
+
+    synchronized void sent(int commandsInChunk, long bytesInChunk, long latencyNanos)
+    {
+        if (chunks == latencies.length)
+        {
+            commands = Arrays.copyOf(commands, chunks * 2);
+            bytes = Arrays.copyOf(bytes, chunks * 2);
+            latencies = Arrays.copyOf(latencies, chunks * 2);
+        }
+        commands[chunks] = commandsInChunk;
+        bytes[chunks] = bytesInChunk;
+        latencies[chunks] = latencyNanos;
+        chunks++;
+    }
+
+    public synchronized int getChunks()
+    {
+        return chunks;
+    }
+
+    public synchronized long getCommands()
+    {
+        long total = 0;
+        for (int i = 0; i < chunks; i++)
+        {
+            total += commands[i];
+        }
+        return total;
+    }
+
+    public synchronized long getBytes()
+    {
+        long total = 0;
+        for (int i = 0; i < chunks; i++)
+        {
+            total += bytes[i];
+        }
+        return total;
+    }
+
+    public synchronized long[] getChunkLatenciesNanos()
+    {
+        return Arrays.copyOf(latencies, chunks);
+    }
+
+    /**
+     * Commands per second the server got through in each chunk, in the order the chunks finished.
+     */
+    public synchronized double[] getChunkThroughputs()
+    {
+        double[] throughputs = new double[chunks];
+        for (int i = 0; i < chunks; i++)
+        {
+            throughputs[i] = commands[i] * 1000000000.0 / Math.max(1, latencies[i]);
+        }
+        return throughputs;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        StringBuilder report = new StringBuilder(String.format("%d commands in %d chunks, %d bytes", getCommands(),
+                                                               chunks, getBytes()));
+        for (int i = 0; i < chunks; i++)
+        {
+            report.append(String.format("%n  chunk %d: %d commands in %d ms, %.0f commands/s", i, commands[i],
+                                        latencies[i] / 1000000, getChunkThroughputs()[i]));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,294 @@
+package org.neo4j.tutorial.server.rest;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientResponse;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends a stream of batch commands to the /batch endpoint in chunks of bounded size, rather than as
+ * one request that the server has to hold and run at once. Chunks are written as commands arrive,
+ * and sent on a few threads sharing one client, so the next chunk is being built while earlier ones
+ * are on the wire.
+ * <p/>
+ * A reference to a job in the same chunk is left for the server to resolve. A reference to a job in
+ * an earlier chunk is replaced by the URI that job created, waiting for its chunk to come back if
+ * need be. Each chunk runs in its own transaction on the server, so a failed chunk does not undo
+ * the chunks before it; the failure is thrown from the next call to {@link #add(BatchCommand)} or
+ * {@link #finish()}.
+ */
+public class ChunkingBatchExecutor
+{
+    public static final int DEFAULT_COMMANDS_PER_CHUNK = 1000;
+    public static final int DEFAULT_BYTES_PER_CHUNK = 1024 * 1024;
+    public static final int DEFAULT_CHUNKS_IN_FLIGHT = 2;
+
+    private final Client client;
+    private final String dataUri;
+    private final int maxCommandsPerChunk;
+    private final int maxBytesPerChunk;
+    private final ExecutorService senders;
+    private final Semaphore inFlight;
+
+    private final Map<Integer, String> locations = new ConcurrentHashMap<Integer, String>();
+    private final Map<Integer, Future<?>> chunkOfJob = new HashMap<Integer, Future<?>>();
+    private final Set<Future<?>> sending = new HashSet<Future<?>>();
+    private final BatchReport report = new BatchReport();
+
+    private ByteArrayOutputStream chunkBytes;
+    private BatchCommandBuilder chunk;
+    private Set<Integer> jobsInChunk = new HashSet<Integer>();
+    private int commandsInChunk = 0;
+
+    public ChunkingBatchExecutor(Client client, String dataUri)
+    {
+        this(client, dataUri, DEFAULT_COMMANDS_PER_CHUNK, DEFAULT_BYTES_PER_CHUNK, DEFAULT_CHUNKS_IN_FLIGHT);
+    }
+
+    /**
+     * @param dataUri the root of the REST API, as in http://localhost:7474/db/data/
+     */
+    public ChunkingBatchExecutor(Client client, String dataUri, int maxCommandsPerChunk, int maxBytesPerChunk,
+                                 int chunksInFlight)
+    {
+        if (maxCommandsPerChunk < 1 || maxBytesPerChunk < 1 || chunksInFlight < 1)
+        {
+            throw new IllegalArgumentException("Chunks must hold at least one command, and at least one must be sent at a time");
+        }
+        this.client = client;
+        this.dataUri = dataUri.endsWith("/") ? dataUri : dataUri + "/";
+        this.maxCommandsPerChunk = maxCommandsPerChunk;
+        this.maxBytesPerChunk = maxBytesPerChunk;
+        this.senders = Executors.newFixedThreadPool(chunksInFlight);
+        this.inFlight = new Semaphore(chunksInFlight);
+        startChunk();
+    }
+
+    public ChunkingBatchExecutor add(BatchCommand command)
+    {
+        Integer jobId = command.getJobId();
+        if (jobId != null && (jobsInChunk.contains(jobId) || chunkOfJob.containsKey(jobId)))
+        {
+            throw new IllegalArgumentException(String.format("Job id [%d] is already in use", jobId));
+        }
+
+        Map<Integer, String> resolved = new HashMap<Integer, String>();
+        for (Integer reference : command.references())
+        {
+            if (!jobsInChunk.contains(reference))
+            {
+                resolved.put(reference, locationOf(reference));
+            }
+        }
+        if (!resolved.isEmpty())
+        {
+            command = command.resolve(resolved, dataUri);
+        }
+
+        chunk.add(command);
+        commandsInChunk++;
+        if (jobId != null)
+        {
+            jobsInChunk.add(jobId);
+        }
+        if (commandsInChunk >= maxCommandsPerChunk || bytesInChunk() >= maxBytesPerChunk)
+        {
+            sendChunk();
+        }
+        return this;
+    }
+
+    /**
+     * Sends whatever is left, waits for every chunk to come back and stops the sending threads.
+     */
+    public BatchReport finish()
+    {
+        try
+        {
+            if (commandsInChunk > 0)
+            {
+                sendChunk();
+            }
+            for (Future<?> chunk : sending)
+            {
+                await(chunk);
+            }
+            return report;
+        } finally
+        {
+            senders.shutdown();
+        }
+    }
+
+    public BatchReport getReport()
+    {
+        return report;
+    }
+
+    private String locationOf(Integer jobId)
+    {
+        Future<?> chunk = chunkOfJob.get(jobId);
+        if (chunk == null)
+        {
+            throw new IllegalArgumentException(String.format("No earlier job [%d] to refer to", jobId));
+        }
+        await(chunk);
+        String location = locations.get(jobId);
+        if (location == null)
+        {
+            throw new IllegalArgumentException(String.format("Job [%d] did not create anything to refer to", jobId));
+        }
+        return location;
+    }
+
+    private void sendChunk()
+    {
+        final byte[] body;
+        try
+        {
+            chunk.close();
+            body = chunkBytes.toByteArray();
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to write batch chunk", e);
+        }
+        final int commands = commandsInChunk;
+
+        inFlight.acquireUninterruptibly();
+        Future<?> sent;
+        try
+        {
+            sent = senders.submit(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        send(body, commands);
+                    } finally
+                    {
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e)
+        {
+            inFlight.release();
+            throw e;
+        }
+
+        sending.add(sent);
+        for (Integer jobId : jobsInChunk)
+        {
+            chunkOfJob.put(jobId, sent);
+        }
+        forgetFinishedChunks();
+        startChunk();
+    }
+
+    private void send(byte[] body, int commands)
+    {
+        long start = System.nanoTime();
+        ClientResponse response = client.resource(dataUri + "batch")
+                                        .type(MediaType.APPLICATION_JSON)
+                                        .accept(MediaType.APPLICATION_JSON)
+                                        .post(ClientResponse.class, body);
+        if (response.getStatus() != 200)
+        {
+            throw new RuntimeException(String.format("Batch chunk of %d commands failed with status [%d]: %s",
+                                                     commands, response.getStatus(),
+                                                     response.getEntity(String.class)));
+        }
+
+        JsonResultStream results = JsonResultStream.of(response);
+        try
+        {
+            for (Map<String, Object> result : results)
+            {
+                Object id = result.get("id");
+                Object location = result.get("location");
+                if (id != null && location != null)
+                {
+                    locations.put(((Number) id).intValue(), location.toString());
+                }
+            }
+        } finally
+        {
+            results.close();
+        }
+        long latency = System.nanoTime() - start;
+        report.sent(commands, body.length, latency);
+    }
+
+    /**
+     * Rethrows the first failure among chunks that have come back, and stops tracking the rest of
+     * them; chunks still referred to by job id are kept for {@link #locationOf(Integer)}.
+     */
+    private void forgetFinishedChunks()
+    {
+        Set<Future<?>> finished = new HashSet<Future<?>>();
+        for (Future<?> chunk : sending)
+        {
+            if (chunk.isDone())
+            {
+                await(chunk);
+                finished.add(chunk);
+            }
+        }
+        sending.removeAll(finished);
+    }
+
+    private static void await(Future<?> chunk)
+    {
+        try
+        {
+            chunk.get();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                  .interrupt();
+            throw new RuntimeException("Interrupted waiting for a batch chunk", e);
+        } catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Batch chunk failed", cause);
+        }
+    }
+
+    private int bytesInChunk()
+    {
+        try
+        {
+            chunk.flush();
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to write batch chunk", e);
+        }
+        return chunkBytes.size();
+    }
+
+    private void startChunk()
+    {
+        chunkBytes = new ByteArrayOutputStream();
+        chunk = BatchCommandBuilder.streamingTo(chunkBytes);
+        jobsInChunk = new HashSet<Integer>();
+        commandsInChunk = 0;
+    }
+}
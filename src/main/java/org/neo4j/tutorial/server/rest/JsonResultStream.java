@@ -0,0 +1,159 @@
+package org.neo4j.tutorial.server.rest;
+
+import com.sun.jersey.api.client.ClientResponse;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the results of a REST call, such as the nodes or paths of a traversal, one at a time as
+ * they come off the wire rather than parsing the whole response first. Only the result being looked
+ * at is held in memory. The stream is closed once the last result has been read; if iteration stops
+ * early it must be closed by hand.
+ * <p/>
+ * The results can be iterated once.
+ */
+public class JsonResultStream implements Iterable<Map<String, Object>>, Closeable
+{
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final InputStream in;
+    private final JsonParser parser;
+    private final ClientResponse response;
+    private Map<String, Object> next;
+    private boolean iterated = false;
+    private boolean closed = false;
+
+    public JsonResultStream(InputStream in)
+    {
+        this(in, null);
+    }
+
+    private JsonResultStream(InputStream in, ClientResponse response)
+    {
+        this.in = in;
+        this.response = response;
+        try
+        {
+            this.parser = mapper.getJsonFactory()
+                                .createJsonParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+            {
+                throw new IllegalArgumentException("Expected a JSON array of results");
+            }
+        } catch (IOException e)
+        {
+            closeQuietly();
+            throw new RuntimeException("Unable to read results", e);
+        } catch (RuntimeException e)
+        {
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the entity of a response, which must have succeeded.
+     */
+    public static JsonResultStream of(ClientResponse response)
+    {
+        if (response.getStatus() / 100 != 2)
+        {
+            String entity = response.getEntity(String.class);
+            throw new RuntimeException(String.format("Request failed with status [%d]: %s", response.getStatus(),
+                                                     entity));
+        }
+        return new JsonResultStream(response.getEntityInputStream(), response);
+    }
+
+    public Iterator<Map<String, Object>> iterator()
+    {
+        if (iterated)
+        {
+            throw new IllegalStateException("Results can only be read once");
+        }
+        iterated = true;
+        return new Iterator<Map<String, Object>>()
+        {
+            public boolean hasNext()
+            {
+                return fetch();
+            }
+
+            public Map<String, Object> next()
+            {
+                if (!fetch())
+                {
+                    throw new NoSuchElementException();
+                }
+                Map<String, Object> result = next;
+                next = null;
+                return result;
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean fetch()
+    {
+        if (next != null)
+        {
+            return true;
+        }
+        if (closed)
+        {
+            return false;
+        }
+        try
+        {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY)
+            {
+                close();
+                return false;
+            }
+            next = mapper.readValue(parser, Map.class);
+            return true;
+        } catch (IOException e)
+        {
+            closeQuietly();
+            throw new RuntimeException("Unable to read results", e);
+        }
+    }
+
+    public void close()
+    {
+        if (!closed)
+        {
+            closeQuietly();
+        }
+    }
+
+    private void closeQuietly()
+    {
+        closed = true;
+        try
+        {
+            in.close();
+        } catch (IOException e)
+        {
+            // nothing more can be read either way
+        }
+        if (response != null)
+        {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.neo4j.tutorial.server.rest;
+
+import com.sun.jersey.api.client.ClientResponse;
+
+import javax.ws.rs.core.MediaType;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A traversal run by a paged traverser on the server, which keeps its place between requests so
+ * that neither side holds more than a page of results at a time. The traverser is created when
+ * the first page is asked for, and each further page is fetched only once the one before it has
+ * been used up. A traverser the client stops asking for is dropped by the server when its lease
+ * runs out.
+ * <p/>
+ * The pages can be iterated once.
+ */
+public class PagedTraversal implements Iterable<List<Map<String, Object>>>
+{
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_LEASE_SECONDS = 60;
+
+    private final RestClient client;
+    private final String nodeUri;
+    private final String returnType;
+    private final TraversalDescription traversal;
+    private final int pageSize;
+    private final int leaseSeconds;
+
+    private URI traverser;
+    private boolean iterated = false;
+
+    public PagedTraversal(RestClient client, String nodeUri, String returnType, TraversalDescription traversal)
+    {
+        this(client, nodeUri, returnType, traversal, DEFAULT_PAGE_SIZE, DEFAULT_LEASE_SECONDS);
+    }
+
+    /**
+     * @param returnType "node", "relationship", "path" or "fullpath"
+     */
+    public PagedTraversal(RestClient client, String nodeUri, String returnType, TraversalDescription traversal,
+                          int pageSize, int leaseSeconds)
+    {
+        if (pageSize < 1 || leaseSeconds < 1)
+        {
+            throw new IllegalArgumentException("Page size and lease must both be at least one");
+        }
+        traversal.assertPlainTraversal();
+        this.client = client;
+        this.nodeUri = nodeUri;
+        this.returnType = returnType;
+        this.traversal = traversal;
+        this.pageSize = pageSize;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Where the traverser lives on the server, or null if it has not been created yet.
+     */
+    public URI getTraverserUri()
+    {
+        return traverser;
+    }
+
+    public Iterator<List<Map<String, Object>>> iterator()
+    {
+        if (iterated)
+        {
+            throw new IllegalStateException("A paged traversal can only be read once");
+        }
+        iterated = true;
+        return new Iterator<List<Map<String, Object>>>()
+        {
+            private List<Map<String, Object>> page;
+            private boolean exhausted = false;
+
+            public boolean hasNext()
+            {
+                if (page == null && !exhausted)
+                {
+                    page = traverser == null ? firstPage() : nextPage();
+                    exhausted = page == null;
+                }
+                return page != null;
+            }
+
+            public List<Map<String, Object>> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                List<Map<String, Object>> result = page;
+                page = null;
+                return result;
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * The results of every page, one after another.
+     */
+    public Iterable<Map<String, Object>> results()
+    {
+        return new Iterable<Map<String, Object>>()
+        {
+            public Iterator<Map<String, Object>> iterator()
+            {
+                final Iterator<List<Map<String, Object>>> pages = PagedTraversal.this.iterator();
+                return new Iterator<Map<String, Object>>()
+                {
+                    private Iterator<Map<String, Object>> page = Collections.<Map<String, Object>>emptyList()
+                                                                           .iterator();
+
+                    public boolean hasNext()
+                    {
+                        while (!page.hasNext() && pages.hasNext())
+                        {
+                            page = pages.next()
+                                        .iterator();
+                        }
+                        return page.hasNext();
+                    }
+
+                    public Map<String, Object> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        return page.next();
+                    }
+
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    private List<Map<String, Object>> firstPage()
+    {
+        ClientResponse response = client.resource(nodeUri)
+                                        .path("paged")
+                                        .path("traverse")
+                                        .path(returnType)
+                                        .queryParam("pageSize", String.valueOf(pageSize))
+                                        .queryParam("leaseTime", String.valueOf(leaseSeconds))
+                                        .type(MediaType.APPLICATION_JSON)
+                                        .accept(MediaType.APPLICATION_JSON)
+                                        .post(ClientResponse.class, traversal.toJson());
+        traverser = response.getLocation();
+        return read(response);
+    }
+
+    /**
+     * @return the next page, or null once the traverser has nothing more and the server has let it go
+     */
+    private List<Map<String, Object>> nextPage()
+    {
+        ClientResponse response = client.resource(traverser.toString())
+                                        .accept(MediaType.APPLICATION_JSON)
+                                        .get(ClientResponse.class);
+        if (response.getStatus() == 404)
+        {
+            response.close();
+            return null;
+        }
+        return read(response);
+    }
+
+    private static List<Map<String, Object>> read(ClientResponse response)
+    {
+        List<Map<String, Object>> page = new ArrayList<Map<String, Object>>();
+        for (Map<String, Object> result : JsonResultStream.of(response))
+        {
+            page.add(result);
+        }
+        return page.isEmpty() ? null : page;
+    }
+}
@@ -0,0 +1,313 @@
+package org.neo4j.tutorial.server.rest;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import javax.ws.rs.core.MediaType;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Jersey client for talking to a server's REST API, shared by everything that does. Creating a
+ * client scans for providers, so it is done once; connections are kept alive between requests by
+ * the JDK and reused by later requests to the same server, as long as each response is read to the
+ * end. At most a configured number of requests are in flight at once, and the rest wait their turn;
+ * a request is in flight until its response is closed, so every response fetched through
+ * {@link #data()} or {@link #resource(String)} must be. Responses that carry no entity, such as a
+ * 204 or the answer to a HEAD request, are out of flight as soon as they arrive, so callers that
+ * only want the status need not close them.
+ * <p/>
+ * Lookups can also be made asynchronously, on as many threads as requests may be sent at once, so
+ * that resolving many nodes takes about as long as the slowest few rather than all of them in turn.
+ */
+public class RestClient
+{
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Client client;
+    private final WebResource data;
+    private final WebResource nodeIndexes;
+    private final ExecutorService lookups;
+
+    public RestClient(String dataUri)
+    {
+        this(dataUri, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * @param dataUri the root of the REST API, as in http://localhost:7474/db/data/
+     */
+    public RestClient(String dataUri, int maxConcurrentRequests)
+    {
+        if (maxConcurrentRequests < 1)
+        {
+            throw new IllegalArgumentException("At least one request must be allowed at a time");
+        }
+        ClientConfig config = new DefaultClientConfig();
+        this.client = Client.create(config);
+        this.client.addFilter(new ConcurrencyLimit(maxConcurrentRequests));
+        this.data = client.resource(dataUri);
+        this.nodeIndexes = data.path("index")
+                               .path("node");
+        this.lookups = Executors.newFixedThreadPool(maxConcurrentRequests, new ThreadFactory()
+        {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "rest-lookup-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * The root of the REST API, for building resources below it with {@link WebResource#path(String)}.
+     */
+    public WebResource data()
+    {
+        return data;
+    }
+
+    public WebResource resource(String uri)
+    {
+        return client.resource(uri);
+    }
+
+    public WebResource nodeIndex(String indexName, String key, Object value)
+    {
+        return nodeIndexes.path(indexName)
+                          .path(key)
+                          .path(value.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getJson(WebResource resource)
+    {
+        ClientResponse response = resource.accept(MediaType.APPLICATION_JSON)
+                                          .get(ClientResponse.class);
+        try
+        {
+            if (response.getStatus() != 200)
+            {
+                throw new RuntimeException(String.format("Request to [%s] failed with status [%d]",
+                                                         resource.getURI(), response.getStatus()));
+            }
+            return mapper.readValue(response.getEntityInputStream(), Map.class);
+        } catch (IOException e)
+        {
+            throw new RuntimeException(String.format("Invalid response from [%s]", resource.getURI()), e);
+        } finally
+        {
+            response.close();
+        }
+    }
+
+    public List<Map<String, Object>> getJsonList(WebResource resource)
+    {
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+        for (Map<String, Object> result : streamJsonList(resource))
+        {
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * The results of a GET, read as they arrive.
+     */
+    public JsonResultStream streamJsonList(WebResource resource)
+    {
+        return JsonResultStream.of(resource.accept(MediaType.APPLICATION_JSON)
+                                           .get(ClientResponse.class));
+    }
+
+    /**
+     * The results of a POST, such as a traversal, read as they arrive.
+     */
+    public JsonResultStream streamJsonList(WebResource resource, String jsonBody)
+    {
+        return JsonResultStream.of(resource.type(MediaType.APPLICATION_JSON)
+                                           .accept(MediaType.APPLICATION_JSON)
+                                           .post(ClientResponse.class, jsonBody));
+    }
+
+    public Future<Map<String, Object>> getJsonAsync(final WebResource resource)
+    {
+        return lookups.submit(new Callable<Map<String, Object>>()
+        {
+            public Map<String, Object> call() throws Exception
+            {
+                return getJson(resource);
+            }
+        });
+    }
+
+    /**
+     * Looks up the first node indexed under the given value, or null if there is none. The index
+     * answers with the nodes themselves, so this is one round trip rather than one to the index
+     * and another to the node.
+     */
+    public Map<String, Object> getIndexedNode(String indexName, String key, Object value)
+    {
+        List<Map<String, Object>> nodes = getJsonList(nodeIndex(indexName, key, value));
+        return nodes.isEmpty() ? null : nodes.get(0);
+    }
+
+    public Future<Map<String, Object>> getIndexedNodeAsync(final String indexName, final String key, final Object value)
+    {
+        return lookups.submit(new Callable<Map<String, Object>>()
+        {
+            public Map<String, Object> call() throws Exception
+            {
+                return getIndexedNode(indexName, key, value);
+            }
+        });
+    }
+
+    /**
+     * Looks up the nodes indexed under each of the given values, with as many lookups in flight at
+     * once as the client allows requests.
+     *
+     * @return each value's node, in the order the values were given, or null where there is none
+     */
+    public Map<Object, Map<String, Object>> getIndexedNodes(String indexName, String key, Collection<?> values)
+    {
+        Map<Object, Future<Map<String, Object>>> lookedUp = new LinkedHashMap<Object, Future<Map<String, Object>>>();
+        for (Object value : values)
+        {
+            if (!lookedUp.containsKey(value))
+            {
+                lookedUp.put(value, getIndexedNodeAsync(indexName, key, value));
+            }
+        }
+
+        Map<Object, Map<String, Object>> nodes = new LinkedHashMap<Object, Map<String, Object>>();
+        for (Map.Entry<Object, Future<Map<String, Object>>> lookup : lookedUp.entrySet())
+        {
+            try
+            {
+                nodes.put(lookup.getKey(), lookup.getValue()
+                                                 .get());
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread()
+                      .interrupt();
+                throw new RuntimeException("Interrupted looking up indexed nodes", e);
+            } catch (ExecutionException e)
+            {
+                throw new RuntimeException(String.format("Unable to look up [%s] in the [%s] index", lookup.getKey(),
+                                                         indexName), e.getCause());
+            }
+        }
+        return nodes;
+    }
+
+    public void destroy()
+    {
+        lookups.shutdownNow();
+        client.destroy();
+    }
+
+    /**
+     * Counts a request against the limit from the moment it is sent until its response is closed,
+     * rather than until its headers arrive, so that responses still being streamed hold their place.
+     */
+    private static class ConcurrencyLimit extends ClientFilter
+    {
+        private final Semaphore permits;
+
+        ConcurrencyLimit(int maxConcurrentRequests)
+        {
+            this.permits = new Semaphore(maxConcurrentRequests, true);
+        }
+
+        @Override
+        public ClientResponse handle(ClientRequest request) throws ClientHandlerException
+        {
+            try
+            {
+                permits.acquire();
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread()
+                      .interrupt();
+                throw new ClientHandlerException("Interrupted waiting to send a request", e);
+            }
+            ClientResponse response;
+            try
+            {
+                response = getNext().handle(request);
+            } catch (RuntimeException e)
+            {
+                permits.release();
+                throw e;
+            }
+            if (hasNoEntity(request, response))
+            {
+                permits.release();
+            }
+            else
+            {
+                response.setEntityInputStream(new ReleaseOnClose(response.getEntityInputStream()));
+            }
+            return response;
+        }
+
+        private boolean hasNoEntity(ClientRequest request, ClientResponse response)
+        {
+            return "HEAD".equals(request.getMethod()) || response.getStatus() == 204 || response.getStatus() == 304
+                    || response.getLength() == 0;
+        }
+
+        private class ReleaseOnClose extends FilterInputStream
+        {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            ReleaseOnClose(InputStream in)
+            {
+                super(in);
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                } finally
+                {
+                    if (released.compareAndSet(false, true))
+                    {
+                        permits.release();
+                    }
+                }
+            }
+        }
+    }
+}
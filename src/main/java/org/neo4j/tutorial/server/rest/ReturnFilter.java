@@ -0,0 +1,130 @@
+package org.neo4j.tutorial.server.rest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which positions of a traversal are returned, described as data rather than as a
+ * JavaScript body. {@link #all()} and {@link #allButStartNode()} are the server's own built-in
+ * filters and work with the plain traversal API; any other filter is compiled to a Java evaluator
+ * by {@link org.neo4j.tutorial.server.plugins.TypedTraversalPlugin}, and the traversal has to be
+ * sent there.
+ */
+public class ReturnFilter
+{
+    private static final ReturnFilter ALL = builtin("all");
+    private static final ReturnFilter ALL_BUT_START_NODE = builtin("all_but_start_node");
+
+    private final Map<String, Object> description;
+    private final boolean builtin;
+
+    private ReturnFilter(Map<String, Object> description, boolean builtin)
+    {
+        this.description = description;
+        this.builtin = builtin;
+    }
+
+    public static ReturnFilter all()
+    {
+        return ALL;
+    }
+
+    public static ReturnFilter allButStartNode()
+    {
+        return ALL_BUT_START_NODE;
+    }
+
+    /**
+     * Returns positions whose end node has the given value for the property.
+     */
+    public static ReturnFilter propertyEquals(String key, Object value)
+    {
+        Map<String, Object> description = typed("property_equals");
+        description.put("key", key);
+        description.put("value", value);
+        return new ReturnFilter(description, false);
+    }
+
+    /**
+     * Returns positions reached over a relationship of one of the given types.
+     */
+    public static ReturnFilter relationshipTypeIn(String... types)
+    {
+        Map<String, Object> description = typed("relationship_type_in");
+        description.put("types", Arrays.asList(types));
+        return new ReturnFilter(description, false);
+    }
+
+    /**
+     * Returns positions between the given depths from the start node, inclusive.
+     */
+    public static ReturnFilter depthBetween(int minDepth, int maxDepth)
+    {
+        Map<String, Object> description = typed("depth_between");
+        description.put("min", minDepth);
+        description.put("max", maxDepth);
+        return new ReturnFilter(description, false);
+    }
+
+    public static ReturnFilter and(ReturnFilter... filters)
+    {
+        return combined("and", filters);
+    }
+
+    public static ReturnFilter or(ReturnFilter... filters)
+    {
+        return combined("or", filters);
+    }
+
+    public static ReturnFilter not(ReturnFilter filter)
+    {
+        return combined("not", filter);
+    }
+
+    /**
+     * True if the server's plain traversal API can run this filter itself.
+     */
+    public boolean isBuiltin()
+    {
+        return builtin;
+    }
+
+    /**
+     * The filter as the "return_filter" of a traversal description.
+     */
+    public Map<String, Object> toMap()
+    {
+        return description;
+    }
+
+    private static ReturnFilter builtin(String name)
+    {
+        Map<String, Object> description = new LinkedHashMap<String, Object>();
+        description.put("language", "builtin");
+        description.put("name", name);
+        return new ReturnFilter(description, true);
+    }
+
+    private static Map<String, Object> typed(String type)
+    {
+        Map<String, Object> description = new LinkedHashMap<String, Object>();
+        description.put("language", "typed");
+        description.put("type", type);
+        return description;
+    }
+
+    private static ReturnFilter combined(String type, ReturnFilter... filters)
+    {
+        List<Map<String, Object>> operands = new ArrayList<Map<String, Object>>();
+        for (ReturnFilter filter : filters)
+        {
+            operands.add(filter.toMap());
+        }
+        Map<String, Object> description = typed(type);
+        description.put("filters", operands);
+        return new ReturnFilter(description, false);
+    }
+}
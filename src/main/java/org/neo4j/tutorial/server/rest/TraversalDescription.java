@@ -1,7 +1,11 @@
 package org.neo4j.tutorial.server.rest;
 
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class TraversalDescription
@@ -11,9 +15,12 @@ public class TraversalDescription
     public static final String NODE = "node";
     public static final String ALL = "all";
 
+    private static final ObjectMapper mapper = new ObjectMapper();
+
     private String uniqueness = NODE;
     private int maxDepth = 1;
     private String returnFilter = ALL;
+    private ReturnFilter typedReturnFilter;
     private String order = DEPTH_FIRST;
     private List<RelationshipDescription> relationships = new ArrayList<RelationshipDescription>();
 
@@ -35,6 +42,35 @@ public class TraversalDescription
     public void setReturnFilter(String returnFilter)
     {
         this.returnFilter = returnFilter;
+        this.typedReturnFilter = null;
+    }
+
+    /**
+     * Filters with a typed filter instead of a JavaScript body. Unless the filter is built in, the
+     * traversal must be run through {@link org.neo4j.tutorial.server.plugins.TypedTraversalPlugin},
+     * with {@link #toPluginJson()} as the request.
+     */
+    public void setReturnFilter(ReturnFilter returnFilter)
+    {
+        this.typedReturnFilter = returnFilter;
+    }
+
+    public boolean needsTypedTraversalPlugin()
+    {
+        return typedReturnFilter != null && !typedReturnFilter.isBuiltin();
+    }
+
+    /**
+     * Refuses a traversal that the server's plain traversal API would not understand, rather than
+     * let it fail there.
+     */
+    void assertPlainTraversal()
+    {
+        if (needsTypedTraversalPlugin())
+        {
+            throw new IllegalArgumentException(
+                    "A typed return filter can only be run by the typed traversal plugin; send toPluginJson() to it");
+        }
     }
 
     public void setRelationships(RelationshipDescription... relationships)
@@ -42,6 +78,14 @@ public class TraversalDescription
         this.relationships = Arrays.asList(relationships);
     }
 
+    /**
+     * This traversal from the given node, fetched a page at a time from a traverser on the server.
+     */
+    public PagedTraversal pagedFrom(RestClient client, String nodeUri, String returnType, int pageSize, int leaseSeconds)
+    {
+        return new PagedTraversal(client, nodeUri, returnType, this, pageSize, leaseSeconds);
+    }
+
     public String toJson()
     {
         StringBuilder sb = new StringBuilder();
@@ -64,14 +108,41 @@ public class TraversalDescription
             }
             sb.append("], ");
         }
-        sb.append("\"return_filter\" : { ");
-        sb.append("\"language\" : \"javascript\", ");
-        sb.append("\"body\" : \"");
-        sb.append(returnFilter);
-        sb.append("\" }, ");
+        if (typedReturnFilter != null)
+        {
+            sb.append("\"return_filter\" : ");
+            sb.append(writeJson(typedReturnFilter.toMap()));
+            sb.append(", ");
+        } else
+        {
+            sb.append("\"return_filter\" : { ");
+            sb.append("\"language\" : \"javascript\", ");
+            sb.append("\"body\" : \"");
+            sb.append(returnFilter);
+            sb.append("\" }, ");
+        }
         sb.append("\"max_depth\" : ");
         sb.append(maxDepth);
         sb.append(" }");
         return sb.toString();
     }
+
+    /**
+     * The body of a request to {@link org.neo4j.tutorial.server.plugins.TypedTraversalPlugin}.
+     */
+    public String toPluginJson()
+    {
+        return writeJson(Collections.singletonMap("traversal", toJson()));
+    }
+
+    private static String writeJson(Object value)
+    {
+        try
+        {
+            return mapper.writeValueAsString(value);
+        } catch (IOException e)
+        {
+            throw new RuntimeException("Unable to write traversal description", e);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.neo4j.tutorial.AwesomenessRatingEngine.MAX_HOPS;
+
+/**
+ * A small universe for the awesomeness tests, with a known number of hops from the Doctor to every
+ * node:
+ * <ul>
+ * <li>Rose and Martha are both companions, tied one hop away;</li>
+ * <li>Earth is two hops away along two shortest paths, one through each of them;</li>
+ * <li>a chain of things leads on from Earth to {@link AwesomenessRatingEngine#MAX_HOPS} hops, and
+ * one hop beyond;</li>
+ * <li>the Adipose and the planet they come from are not connected to the Doctor at all.</li>
+ * </ul>
+ */
+class AwesomenessFixture
+{
+    static final int UNRATED = -1;
+
+    final GraphDatabaseService db;
+    final Node theDoctor;
+    final Node rose;
+    final Node martha;
+    final Node earth;
+    final Node[] chain;
+    final Node adipose;
+    final Node adiposeThree;
+    final Relationship roseComesFromEarth;
+
+    private final Map<Node, Integer> hops = new LinkedHashMap<Node, Integer>();
+
+    AwesomenessFixture()
+    {
+        db = DatabaseHelper.createDatabase();
+        Transaction tx = db.beginTx();
+        try
+        {
+            theDoctor = character("Doctor", 0);
+            rose = character("Rose Tyler", 1);
+            martha = character("Martha Jones", 1);
+            rose.createRelationshipTo(theDoctor, DoctorWhoRelationships.COMPANION_OF);
+            martha.createRelationshipTo(theDoctor, DoctorWhoRelationships.COMPANION_OF);
+
+            earth = node(2);
+            db.index().forNodes("planets").add(earth, "planet", "Earth");
+            roseComesFromEarth = rose.createRelationshipTo(earth, DoctorWhoRelationships.COMES_FROM);
+            martha.createRelationshipTo(earth, DoctorWhoRelationships.COMES_FROM);
+
+            chain = new Node[MAX_HOPS - 1];
+            Node previous = earth;
+            for (int i = 0; i < chain.length; i++)
+            {
+                int hopsAway = i + 3;
+                chain[i] = node(hopsAway <= MAX_HOPS ? hopsAway : UNRATED);
+                previous.createRelationshipTo(chain[i], DoctorWhoRelationships.OWNS);
+                previous = chain[i];
+            }
+
+            adipose = node(UNRATED);
+            adiposeThree = node(UNRATED);
+            adipose.createRelationshipTo(adiposeThree, DoctorWhoRelationships.COMES_FROM);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    /**
+     * The furthest node from the Doctor that still has a rating.
+     */
+    Node furthestRated()
+    {
+        return chain[chain.length - 2];
+    }
+
+    Node beyondMaxHops()
+    {
+        return chain[chain.length - 1];
+    }
+
+    /**
+     * The number of hops from the Doctor to every node in the fixture, or {@link #UNRATED} for those
+     * that are unreachable or too far away.
+     */
+    Map<Node, Integer> hops()
+    {
+        return hops;
+    }
+
+    int ratedNodes()
+    {
+        int rated = 0;
+        for (int nodeHops : hops.values())
+        {
+            if (nodeHops != UNRATED)
+            {
+                rated++;
+            }
+        }
+        return rated;
+    }
+
+    static double ratingFor(int nodeHops)
+    {
+        return nodeHops == UNRATED ? 0 : AwesomenessRatingEngine.rating(nodeHops);
+    }
+
+    void shutdown()
+    {
+        db.shutdown();
+    }
+
+    private Node character(String name, int nodeHops)
+    {
+        Node character = node(nodeHops);
+        character.setProperty("character", name);
+        db.index().forNodes("characters").add(character, "character", name);
+        return character;
+    }
+
+    private Node node(int nodeHops)
+    {
+        Node node = db.createNode();
+        hops.put(node, nodeHops);
+        return node;
+    }
+}
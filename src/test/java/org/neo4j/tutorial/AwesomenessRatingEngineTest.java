@@ -4,13 +4,25 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.neo4j.graphdb.Node;
+import org.neo4j.helpers.Predicate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.neo4j.tutorial.AwesomenessFixture.UNRATED;
+import static org.neo4j.tutorial.AwesomenessFixture.ratingFor;
 
 public class AwesomenessRatingEngineTest
 {
 
     private static EmbeddedDoctorWhoUniverse universe;
+    private static AwesomenessFixture fixture;
 
     @BeforeClass
     public static void createDatabase() throws Exception
@@ -24,6 +36,18 @@ public class AwesomenessRatingEngineTest
         universe.stop();
     }
 
+    @BeforeClass
+    public static void createFixture()
+    {
+        fixture = new AwesomenessFixture();
+    }
+
+    @AfterClass
+    public static void shutdownFixture()
+    {
+        fixture.shutdown();
+    }
+
     @Test
     public void shouldRateTheDoctorAs100PercentAwesome()
     {
@@ -49,4 +73,89 @@ public class AwesomenessRatingEngineTest
         AwesomenessRatingEngine engine = new AwesomenessRatingEngine();
         assertEquals(33.3, engine.rateAwesomeness(universe.getDatabase(), earth.getId()), 0.3);
     }
+
+    @Test
+    public void shouldRateEveryNodeByItsHopsFromTheDoctor()
+    {
+        AwesomenessRatingEngine engine = new AwesomenessRatingEngine();
+        for (Map.Entry<Node, Integer> node : fixture.hops().entrySet())
+        {
+            assertEquals(ratingFor(node.getValue()), engine.rateAwesomeness(fixture.db, node.getKey().getId()), 0.01);
+        }
+    }
+
+    @Test
+    public void shouldShareOneCypherEngineForADatabase()
+    {
+        assertSame(CypherStatements.forDatabase(fixture.db), CypherStatements.forDatabase(fixture.db));
+    }
+
+    @Test
+    public void shouldRateEverythingWithTheSameRatingsAsOneAtATime()
+    {
+        AwesomenessRatingEngine engine = new AwesomenessRatingEngine();
+        LongDoubleMap ratings = engine.rateAwesomenessOfEverything(fixture.db);
+
+        for (Map.Entry<Node, Integer> node : fixture.hops().entrySet())
+        {
+            long nodeId = node.getKey().getId();
+            assertEquals(node.getValue() != UNRATED, ratings.containsKey(nodeId));
+            assertEquals(engine.rateAwesomeness(fixture.db, nodeId), ratings.get(nodeId, 0), 0.01);
+        }
+    }
+
+    @Test
+    public void shouldRateTheSameWithABidirectionalSearch()
+    {
+        AwesomenessRatingEngine cypher = new AwesomenessRatingEngine();
+        AwesomenessRatingEngine bidirectional = new AwesomenessRatingEngine(new BidirectionalHopDistance());
+
+        for (Node node : fixture.hops().keySet())
+        {
+            assertEquals(cypher.rateAwesomeness(fixture.db, node.getId()),
+                         bidirectional.rateAwesomeness(fixture.db, node.getId()));
+        }
+    }
+
+    @Test
+    public void shouldFindTheMostAwesomeCharactersClosestToTheDoctorFirst()
+    {
+        AwesomenessRatingEngine engine = new AwesomenessRatingEngine();
+        List<RatedNode> mostAwesome = engine.mostAwesome(fixture.db, 2,
+                AwesomenessRatingEngine.indexedIn(fixture.db, "characters", "character"));
+
+        assertEquals(2, mostAwesome.size());
+        assertEquals(fixture.theDoctor, mostAwesome.get(0).getNode());
+        assertEquals(100.0, mostAwesome.get(0).getRating());
+        assertTrue(mostAwesome.get(1).getNode().equals(fixture.rose)
+                || mostAwesome.get(1).getNode().equals(fixture.martha));
+        assertEquals(50.0, mostAwesome.get(1).getRating());
+    }
+
+    @Test
+    public void shouldOnlyFindNodesWithinMaxHops()
+    {
+        AwesomenessRatingEngine engine = new AwesomenessRatingEngine();
+        List<RatedNode> mostAwesome = engine.mostAwesome(fixture.db, 100, new Predicate<Node>()
+        {
+            public boolean accept(Node node)
+            {
+                return true;
+            }
+        });
+
+        assertEquals(fixture.ratedNodes(), mostAwesome.size());
+        Set<Node> found = new HashSet<Node>();
+        double previousRating = Double.MAX_VALUE;
+        for (RatedNode rated : mostAwesome)
+        {
+            assertTrue(rated.getRating() <= previousRating);
+            assertEquals(ratingFor(fixture.hops().get(rated.getNode())), rated.getRating(), 0.01);
+            previousRating = rated.getRating();
+            found.add(rated.getNode());
+        }
+        assertTrue(found.contains(fixture.furthestRated()));
+        assertFalse(found.contains(fixture.beyondMaxHops()));
+        assertFalse(found.contains(fixture.adipose));
+    }
 }
@@ -0,0 +1,94 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.tutorial.RelationshipWeights.relationshipWeights;
+
+public class AwesomenessScoringEngineTest
+{
+    private GraphDatabaseService db;
+    private Node theDoctor;
+    private Node companion;
+    private Node episode;
+
+    @Before
+    public void createDatabase()
+    {
+        db = DatabaseHelper.createDatabase();
+        Transaction tx = db.beginTx();
+        try
+        {
+            theDoctor = db.createNode();
+            db.index().forNodes("characters").add(theDoctor, "character", "Doctor");
+            companion = db.createNode();
+            episode = db.createNode();
+            companion.createRelationshipTo(theDoctor, DoctorWhoRelationships.COMPANION_OF);
+            companion.createRelationshipTo(episode, DoctorWhoRelationships.APPEARED_IN);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldWeighRelationshipsByType()
+    {
+        AwesomenessScoringEngine engine = new AwesomenessScoringEngine(new WeightedDistanceMetric(
+                relationshipWeights().weigh(DoctorWhoRelationships.COMPANION_OF, 0.5)
+                                     .weigh(DoctorWhoRelationships.APPEARED_IN, 2)));
+
+        LongDoubleMap scores = engine.scoreEverything(db);
+
+        assertEquals(100.0, scores.get(theDoctor.getId(), 0), 0.01);
+        assertEquals(100 / 1.5, scores.get(companion.getId(), 0), 0.01);
+        assertEquals(100 / 3.5, scores.get(episode.getId(), 0), 0.01);
+    }
+
+    @Test
+    public void shouldSumDecayingWalksUpToTheGivenDepth()
+    {
+        AwesomenessScoringEngine engine = new AwesomenessScoringEngine(new PathDecayMetric(0.5, 2));
+
+        assertEquals(125.0, engine.score(db, theDoctor.getId()), 0.01);
+        assertEquals(50.0, engine.score(db, companion.getId()), 0.01);
+        assertEquals(25.0, engine.score(db, episode.getId()), 0.01);
+    }
+
+    @Test
+    public void shouldCountHopsFromTheDoctorItIsGiven()
+    {
+        LongDoubleMap ratings = new HopCountMetric().rateEverything(db, companion);
+
+        assertEquals(100.0, ratings.get(companion.getId(), 0), 0.01);
+        assertEquals(50.0, ratings.get(theDoctor.getId(), 0), 0.01);
+        assertEquals(50.0, ratings.get(episode.getId(), 0), 0.01);
+    }
+
+    @Test
+    public void shouldOnlyRateTheDoctorForWalksOfNoLength()
+    {
+        LongDoubleMap ratings = new PathDecayMetric(0.5, 0).rateEverything(db, theDoctor);
+
+        assertEquals(100.0, ratings.get(theDoctor.getId(), 0), 0.01);
+        assertEquals(0.0, ratings.get(companion.getId(), 0), 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseANegativeDepth()
+    {
+        new PathDecayMetric(0.5, -1);
+    }
+}
@@ -0,0 +1,72 @@
+package org.neo4j.tutorial;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class BatchInsertUniverseGeneratorTest
+{
+
+    private static EmbeddedDoctorWhoUniverse universe;
+    private static DatabaseHelper databaseHelper;
+
+    @BeforeClass
+    public static void startDatabase() throws Exception
+    {
+        universe = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator(IngestMode.BATCH_INSERT));
+        databaseHelper = new DatabaseHelper(universe.getDatabase());
+    }
+
+    @AfterClass
+    public static void stopDatabase()
+    {
+        universe.stop();
+    }
+
+    @Test
+    public void shouldHaveCorrectNumberOfPlanetsInIndex()
+    {
+        int numberOfPlanetsMentionedInTVEpisodes = 447;
+        assertEquals(numberOfPlanetsMentionedInTVEpisodes, databaseHelper.count(universe.getDatabase()
+                                                                                        .index()
+                                                                                        .forNodes("planets")
+                                                                                        .query("planet", "*")));
+    }
+
+    @Test
+    public void shouldHave12ActorsThatHavePlayedTheDoctor()
+    {
+        Node theDoctor = universe.theDoctor();
+        assertNotNull(theDoctor);
+        assertEquals(12, databaseHelper.destructivelyCountRelationships(theDoctor.getRelationships(
+                DoctorWhoRelationships.PLAYED, Direction.INCOMING)));
+    }
+
+    @Test
+    public void shouldHaveCorrectNumberOfCompanionsInTotal()
+    {
+        assertEquals(46, databaseHelper.destructivelyCountRelationships(universe.theDoctor().getRelationships(
+                DoctorWhoRelationships.COMPANION_OF, Direction.INCOMING)));
+    }
+
+    @Test
+    public void shouldLinkEveryEpisodeIntoTheNextChain()
+    {
+        Node ep = universe.getDatabase().index().forNodes("episodes").get("episode", 1).getSingle();
+
+        int count = 1;
+        while (ep.hasRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING))
+        {
+            ep = ep.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING).getEndNode();
+            count++;
+        }
+
+        assertEquals(databaseHelper.count(universe.getDatabase().index().forNodes("episodes").query("episode", "*")),
+                     count);
+    }
+}
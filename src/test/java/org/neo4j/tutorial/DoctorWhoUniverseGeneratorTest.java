@@ -70,6 +70,30 @@ public class DoctorWhoUniverseGeneratorTest
         assertEquals(1, count);
     }
 
+    @Test
+    public void shouldIndexEveryEpisodeOnTheTimeline()
+    {
+        EpisodeTimeline timeline = universe.timeline();
+        int episodes = databaseHelper.count(database.index().forNodes("episodes").query("episode", "*"));
+
+        assertEquals(episodes, timeline.size());
+        assertEquals("An Unearthly Child", database.getNodeById(timeline.episodeAt(0)).getProperty("title"));
+        assertEquals(episodes - 1, timeline.distance(timeline.episodeAt(0), timeline.episodeAt(episodes - 1)));
+
+        int between116And135 = 0;
+        for (Node episode : database.index().forNodes("episodes").query("episode", "*"))
+        {
+            String number = episode.getProperty("episode").toString().replaceAll("[^0-9]", "");
+            if (Integer.parseInt(number) >= 116 && Integer.parseInt(number) <= 135)
+            {
+                between116And135++;
+            }
+        }
+        long[] range = timeline.episodesNumbered("116", "135");
+        assertEquals(between116And135, range.length);
+        assertEquals("Castrovalva", database.getNodeById(range[0]).getProperty("title"));
+    }
+
     @SuppressWarnings("unused")
     @Test
     public void shouldHaveCorrectNumberOfPlanetsInIndex()
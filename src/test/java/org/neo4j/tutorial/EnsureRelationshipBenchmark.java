@@ -0,0 +1,89 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Grows the degree of a Doctor node one batch of enemies at a time and reports how long each
+ * batch of ensureRelationshipInDb calls takes, with and without a generation scope. Without the
+ * scope every call scans the Doctor's relationships, so batch time grows with degree; with it,
+ * batch time should stay flat.
+ * <p/>
+ * Not a unit test: run it from the command line or the IDE.
+ */
+public class EnsureRelationshipBenchmark
+{
+    private static final int BATCH_SIZE = 1000;
+    private static final int BATCHES = 16;
+
+    public static void main(String[] args)
+    {
+        System.out.println("degree\tscanning (ms)\tscoped (ms)");
+        long[] scanning = run(false);
+        long[] scoped = run(true);
+        for (int i = 0; i < BATCHES; i++)
+        {
+            System.out.println(String.format("%d\t%d\t%d", (i + 1) * BATCH_SIZE, scanning[i], scoped[i]));
+        }
+    }
+
+    private static long[] run(boolean withScope)
+    {
+        GraphDatabaseService db = DatabaseHelper.createDatabase();
+        GenerationScope scope = withScope ? GenerationScope.open(db, true) : null;
+        long[] batchTimes = new long[BATCHES];
+        try
+        {
+            Node theDoctor = createNode(db);
+            for (int batch = 0; batch < BATCHES; batch++)
+            {
+                Transaction tx = db.beginTx();
+                try
+                {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < BATCH_SIZE; i++)
+                    {
+                        Node enemy = db.createNode();
+                        if (withScope)
+                        {
+                            DatabaseHelper.ensureRelationshipInDb(theDoctor, DoctorWhoRelationships.ENEMY_OF, enemy, db);
+                        }
+                        else
+                        {
+                            DatabaseHelper.ensureRelationshipInDb(theDoctor, DoctorWhoRelationships.ENEMY_OF, enemy);
+                        }
+                    }
+                    batchTimes[batch] = (System.nanoTime() - start) / 1000000;
+                    tx.success();
+                } finally
+                {
+                    tx.finish();
+                }
+            }
+        } finally
+        {
+            if (scope != null)
+            {
+                scope.close();
+            }
+            db.shutdown();
+        }
+        return batchTimes;
+    }
+
+    private static Node createNode(GraphDatabaseService db)
+    {
+        Transaction tx = db.beginTx();
+        try
+        {
+            Node node = db.createNode();
+            node.setProperty("character", "Doctor");
+            tx.success();
+            return node;
+        } finally
+        {
+            tx.finish();
+        }
+    }
+}
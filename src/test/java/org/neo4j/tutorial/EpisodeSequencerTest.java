@@ -0,0 +1,104 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+
+public class EpisodeSequencerTest
+{
+    private GraphDatabaseService db;
+
+    @Before
+    public void createDatabase()
+    {
+        db = DatabaseHelper.createDatabase();
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldChainEpisodesBuiltOutsideAGeneration()
+    {
+        Transaction tx = db.beginTx();
+        try
+        {
+            EpisodeBuilder.episode(1)
+                          .title("An Unearthly Child")
+                          .fact(db);
+            EpisodeBuilder.episode(2)
+                          .title("The Daleks")
+                          .fact(db);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(episode("The Daleks"), next(episode("An Unearthly Child")));
+    }
+
+    @Test
+    public void shouldCarryOnTheChainAfterARollback()
+    {
+        GenerationScope scope = GenerationScope.open(db, true);
+        try
+        {
+            build(scope, "An Unearthly Child", 1, true);
+            build(scope, "The Daleks", 2, false);
+            build(scope, "The Edge of Destruction", 3, true);
+
+            assertEquals(episode("The Edge of Destruction"), next(episode("An Unearthly Child")));
+            assertEquals(2, scope.episodes()
+                                 .timeline()
+                                 .size());
+        } finally
+        {
+            scope.close();
+        }
+    }
+
+    private void build(GenerationScope scope, String title, int episodeNumber, boolean commit)
+    {
+        ChunkedTransaction tx = scope.beginTx();
+        try
+        {
+            EpisodeBuilder.episode(episodeNumber)
+                          .title(title)
+                          .fact(db);
+            if (commit)
+            {
+                tx.success();
+            } else
+            {
+                tx.failure();
+            }
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    private Node episode(String title)
+    {
+        return db.index()
+                 .forNodes("episodes")
+                 .get("title", title)
+                 .getSingle();
+    }
+
+    private static Node next(Node episode)
+    {
+        return episode.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING)
+                      .getEndNode();
+    }
+}
@@ -0,0 +1,221 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+public class EpisodeTimelineTest
+{
+    private String storeDir;
+    private GraphDatabaseService db;
+    private Node rose;
+    private Node theEndOfTheWorld;
+    private Node theUnquietDead;
+
+    @Before
+    public void createChain()
+    {
+        storeDir = DatabaseHelper.createTempDatabaseDir()
+                                 .getAbsolutePath();
+        db = DatabaseHelper.createDatabase(storeDir);
+        Transaction tx = db.beginTx();
+        try
+        {
+            rose = episode("157");
+            theEndOfTheWorld = episode("158");
+            theUnquietDead = episode("159");
+            link(rose, theEndOfTheWorld);
+            link(theEndOfTheWorld, theUnquietDead);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldLoadASavedTimelineThatMatchesTheChain() throws Exception
+    {
+        EpisodeTimeline saved = EpisodeTimeline.fromChain(db);
+        saved.save(new File(storeDir, EpisodeTimeline.FILE_NAME));
+
+        EpisodeTimeline timeline = EpisodeTimeline.of(storeDir, db);
+
+        assertEquals(3, timeline.size());
+        assertEquals(2, timeline.distance(rose.getId(), theUnquietDead.getId()));
+    }
+
+    @Test
+    public void shouldRebuildASavedTimelineThatNoLongerMatchesTheChain() throws Exception
+    {
+        EpisodeTimeline.fromChain(db)
+                       .save(new File(storeDir, EpisodeTimeline.FILE_NAME));
+        Transaction tx = db.beginTx();
+        Node aliensOfLondon;
+        try
+        {
+            aliensOfLondon = episode("160");
+            link(theUnquietDead, aliensOfLondon);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        EpisodeTimeline timeline = EpisodeTimeline.of(storeDir, db);
+
+        assertEquals(4, timeline.size());
+        assertEquals(3, timeline.positionOf(aliensOfLondon.getId()));
+    }
+
+    @Test
+    public void shouldFollowEpisodesAppendedToTheChain()
+    {
+        EpisodeTimeline timeline = EpisodeTimeline.fromChain(db);
+        timeline.follow(db);
+        Transaction tx = db.beginTx();
+        Node aliensOfLondon;
+        try
+        {
+            aliensOfLondon = episode("160");
+            link(theUnquietDead, aliensOfLondon);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(4, timeline.size());
+        assertEquals(3, timeline.positionOf(aliensOfLondon.getId()));
+    }
+
+    @Test
+    public void shouldFollowEpisodesRemovedFromTheChain()
+    {
+        EpisodeTimeline timeline = EpisodeTimeline.fromChain(db);
+        timeline.follow(db);
+        Transaction tx = db.beginTx();
+        try
+        {
+            for (Relationship relationship : theEndOfTheWorld.getRelationships())
+            {
+                relationship.delete();
+            }
+            db.index()
+              .forNodes("episodes")
+              .remove(theEndOfTheWorld);
+            theEndOfTheWorld.delete();
+            link(rose, theUnquietDead);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(2, timeline.size());
+        assertEquals(-1, timeline.positionOf(theEndOfTheWorld.getId()));
+        assertEquals(1, timeline.distance(rose.getId(), theUnquietDead.getId()));
+    }
+
+    @Test
+    public void shouldFollowEpisodesInsertedIntoTheChain()
+    {
+        EpisodeTimeline timeline = EpisodeTimeline.fromChain(db);
+        timeline.follow(db);
+        Transaction tx = db.beginTx();
+        Node missingEpisode;
+        try
+        {
+            for (Relationship relationship : rose.getRelationships(Direction.OUTGOING))
+            {
+                relationship.delete();
+            }
+            for (Relationship relationship : theEndOfTheWorld.getRelationships(DoctorWhoRelationships.PREVIOUS,
+                    Direction.OUTGOING))
+            {
+                relationship.delete();
+            }
+            missingEpisode = episode("157a");
+            link(rose, missingEpisode);
+            link(missingEpisode, theEndOfTheWorld);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(4, timeline.size());
+        assertEquals(1, timeline.positionOf(missingEpisode.getId()));
+    }
+
+    @Test
+    public void shouldFollowEpisodesLinkedBeforeTheStartOfTheChain()
+    {
+        EpisodeTimeline timeline = EpisodeTimeline.fromChain(db);
+        timeline.follow(db);
+        Transaction tx = db.beginTx();
+        Node survivalPrologue;
+        try
+        {
+            survivalPrologue = episode("156");
+            link(survivalPrologue, rose);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(4, timeline.size());
+        assertEquals(0, timeline.positionOf(survivalPrologue.getId()));
+    }
+
+    @Test
+    public void shouldStopFollowingOnceUnfollowed()
+    {
+        EpisodeTimeline timeline = EpisodeTimeline.fromChain(db);
+        timeline.follow(db);
+        timeline.unfollow();
+        Transaction tx = db.beginTx();
+        try
+        {
+            link(theUnquietDead, episode("160"));
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(3, timeline.size());
+    }
+
+    private Node episode(String number)
+    {
+        Node episode = db.createNode();
+        episode.setProperty("episode", number);
+        db.index()
+          .forNodes("episodes")
+          .add(episode, "episode", number);
+        return episode;
+    }
+
+    private static void link(Node previous, Node episode)
+    {
+        previous.createRelationshipTo(episode, DoctorWhoRelationships.NEXT);
+        episode.createRelationshipTo(previous, DoctorWhoRelationships.PREVIOUS);
+    }
+}
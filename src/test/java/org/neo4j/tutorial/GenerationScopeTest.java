@@ -0,0 +1,317 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import static org.junit.Assert.*;
+
+public class GenerationScopeTest
+{
+    private GraphDatabaseService db;
+    private GenerationScope scope;
+
+    @Before
+    public void openScope()
+    {
+        db = DatabaseHelper.createDatabase();
+        scope = GenerationScope.open(db, true);
+    }
+
+    @After
+    public void closeScope()
+    {
+        scope.close();
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldShareTheScopeBetweenBuildersUsingTheSameDatabase()
+    {
+        assertSame(scope, GenerationScope.of(db));
+    }
+
+    @Test
+    public void shouldResolveIndexedNodesFromTheScope()
+    {
+        Transaction tx = db.beginTx();
+        try
+        {
+            Node rose = CharacterBuilder.ensureCharacterIsInDb("Rose Tyler", db);
+
+            assertEquals(rose, scope.lookup("characters", "character", "Rose Tyler"));
+            assertEquals(rose, CharacterBuilder.ensureCharacterIsInDb("Rose Tyler", db));
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Test
+    public void shouldCommitEveryBatchOfOperations()
+    {
+        ChunkedTransaction tx = scope.beginTx(CommitPolicy.commitEvery(2));
+        try
+        {
+            for (String planet : new String[]{"Skaro", "Mondas", "Telos", "Raxacoricofallapatorius", "Gallifrey"})
+            {
+                PlanetBuilder.planet(planet).fact(db);
+            }
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(3, scope.commitReport().getCommits());
+        assertEquals(5, scope.commitReport().getOperations());
+        assertEquals(3, scope.commitReport().getCommitLatenciesNanos().length);
+    }
+
+    @Test
+    public void shouldCommitTheBatchesBegunAfterTheTransactionWasMarkedSuccessful()
+    {
+        ChunkedTransaction tx = scope.beginTx(CommitPolicy.commitEvery(2));
+        try
+        {
+            tx.success();
+            for (String planet : new String[]{"Skaro", "Mondas", "Telos"})
+            {
+                PlanetBuilder.planet(planet).fact(db);
+            }
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertEquals(2, scope.commitReport().getCommits());
+        assertNotNull(db.index().forNodes("planets").get("planet", "Telos").getSingle());
+    }
+
+    @Test
+    public void shouldForgetNodesCreatedInARolledBackTransaction()
+    {
+        Transaction tx = db.beginTx();
+        try
+        {
+            CharacterBuilder.ensureCharacterIsInDb("Adric", db);
+            tx.failure();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertNull(scope.lookup("characters", "character", "Adric"));
+    }
+
+    @Test
+    public void shouldForgetRelationshipsEnsuredInARolledBackBatch()
+    {
+        Transaction setup = db.beginTx();
+        Node adric;
+        Node theDoctor;
+        try
+        {
+            adric = db.createNode();
+            theDoctor = db.createNode();
+            setup.success();
+        } finally
+        {
+            setup.finish();
+        }
+
+        ChunkedTransaction tx = scope.beginTx();
+        try
+        {
+            DatabaseHelper.ensureRelationshipInDb(adric, DoctorWhoRelationships.COMPANION_OF, theDoctor, db);
+            tx.failure();
+        } finally
+        {
+            tx.finish();
+        }
+
+        tx = scope.beginTx();
+        try
+        {
+            DatabaseHelper.ensureRelationshipInDb(adric, DoctorWhoRelationships.COMPANION_OF, theDoctor, db);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertTrue(adric.hasRelationship(DoctorWhoRelationships.COMPANION_OF));
+    }
+
+    @Test
+    public void shouldStartTheNextBatchWhenABatchFailsToCommit()
+    {
+        TransactionEventHandler<Void> vetoFirstCommit = new TransactionEventHandler<Void>()
+        {
+            private boolean vetoed = false;
+
+            public Void beforeCommit(TransactionData data) throws Exception
+            {
+                if (!vetoed)
+                {
+                    vetoed = true;
+                    throw new Exception("The Daleks have vetoed this commit");
+                }
+                return null;
+            }
+
+            public void afterCommit(TransactionData data, Void state)
+            {
+            }
+
+            public void afterRollback(TransactionData data, Void state)
+            {
+            }
+        };
+        db.registerTransactionEventHandler(vetoFirstCommit);
+
+        ChunkedTransaction tx = scope.beginTx(CommitPolicy.commitEvery(1));
+        try
+        {
+            try
+            {
+                PlanetBuilder.planet("Skaro").fact(db);
+                fail("Expected the first batch to fail to commit");
+            } catch (TransactionFailureException expected)
+            {
+            }
+            PlanetBuilder.planet("Gallifrey").fact(db);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+            db.unregisterTransactionEventHandler(vetoFirstCommit);
+        }
+
+        assertNull(db.index().forNodes("planets").get("planet", "Skaro").getSingle());
+        assertNotNull(db.index().forNodes("planets").get("planet", "Gallifrey").getSingle());
+    }
+
+    @Test
+    public void shouldHandANodeToAnotherPhaseOnceTheBatchThatCreatedItCommits() throws Exception
+    {
+        scope.allowConcurrentPhases();
+        ChunkedTransaction tx = scope.beginTx();
+        Node theDoctor;
+        Phase otherPhase;
+        try
+        {
+            theDoctor = scope.getOrCreate("characters", "character", "Doctor");
+
+            otherPhase = new Phase()
+            {
+                void work()
+                {
+                    found = scope.getOrCreate("characters", "character", "Doctor");
+                }
+            };
+            otherPhase.start();
+            otherPhase.join(200);
+            assertTrue(otherPhase.isAlive());
+
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+        otherPhase.join();
+
+        assertEquals(theDoctor, otherPhase.found);
+        assertEquals(1, db.index()
+                          .forNodes("characters")
+                          .get("character", "Doctor")
+                          .size());
+    }
+
+    @Test
+    public void shouldCommitTheWaitingBatchBeforeWaitingForTheWriteToken() throws Exception
+    {
+        final Node theDoctor = committedNode();
+        scope.allowConcurrentPhases();
+        ChunkedTransaction tx = scope.beginTx();
+        Phase otherPhase;
+        try
+        {
+            DatabaseHelper.ensureRelationshipInDb(scope.getOrCreate("characters", "character", "Rose Tyler"),
+                    DoctorWhoRelationships.COMPANION_OF, theDoctor, db);
+
+            otherPhase = new Phase()
+            {
+                void work()
+                {
+                    found = scope.getOrCreate("characters", "character", "Martha Jones");
+                    DatabaseHelper.ensureRelationshipInDb(found, DoctorWhoRelationships.COMPANION_OF, theDoctor, db);
+                }
+            };
+            otherPhase.start();
+            otherPhase.join(200);
+            assertTrue(otherPhase.isAlive());
+            assertEquals(1, db.index()
+                              .forNodes("characters")
+                              .get("character", "Martha Jones")
+                              .size());
+
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+        otherPhase.join();
+
+        assertNull(otherPhase.failure);
+        assertTrue(otherPhase.found.hasRelationship(DoctorWhoRelationships.COMPANION_OF));
+    }
+
+    private Node committedNode()
+    {
+        Transaction tx = db.beginTx();
+        try
+        {
+            Node node = db.createNode();
+            tx.success();
+            return node;
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    /**
+     * A phase on its own thread, doing its work in one batch of the scope.
+     */
+    private abstract class Phase extends Thread
+    {
+        Node found;
+        RuntimeException failure;
+
+        abstract void work();
+
+        public void run()
+        {
+            ChunkedTransaction tx = scope.beginTx();
+            try
+            {
+                work();
+                tx.success();
+            } catch (RuntimeException e)
+            {
+                failure = e;
+            } finally
+            {
+                tx.finish();
+            }
+        }
+    }
+}
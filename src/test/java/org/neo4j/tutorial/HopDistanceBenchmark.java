@@ -0,0 +1,75 @@
+package org.neo4j.tutorial;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the hop distance from every character to the Doctor with Cypher's shortestPath and with
+ * the bidirectional search, after a warm up round of each, and reports the time per lookup.
+ * Both must agree on every distance.
+ * <p/>
+ * Not a unit test: run it from the command line or the IDE.
+ */
+public class HopDistanceBenchmark
+{
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args)
+    {
+        EmbeddedDoctorWhoUniverse universe = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator());
+        try
+        {
+            GraphDatabaseService db = universe.getDatabase();
+            long theDoctor = universe.theDoctor().getId();
+            List<Long> characters = new ArrayList<Long>();
+            for (Node character : db.index().forNodes("characters").query("character", "*"))
+            {
+                characters.add(character.getId());
+            }
+
+            HopDistance cypher = new CypherHopDistance();
+            HopDistance bidirectional = new BidirectionalHopDistance();
+            checkAgreement(db, theDoctor, characters, cypher, bidirectional);
+
+            System.out.println("round\tcypher (us/lookup)\tbidirectional (us/lookup)");
+            for (int round = 1; round <= ROUNDS; round++)
+            {
+                System.out.println(String.format("%d\t%d\t%d", round,
+                        microsPerLookup(db, theDoctor, characters, cypher),
+                        microsPerLookup(db, theDoctor, characters, bidirectional)));
+            }
+        } finally
+        {
+            universe.stop();
+        }
+    }
+
+    private static void checkAgreement(GraphDatabaseService db, long theDoctor, List<Long> characters,
+                                       HopDistance expected, HopDistance actual)
+    {
+        for (long character : characters)
+        {
+            int expectedHops = expected.hops(db, character, theDoctor, AwesomenessRatingEngine.MAX_HOPS);
+            int actualHops = actual.hops(db, character, theDoctor, AwesomenessRatingEngine.MAX_HOPS);
+            if (expectedHops != actualHops)
+            {
+                throw new IllegalStateException(String.format("Node [%d] is [%d] hops from the Doctor, not [%d]",
+                        character, expectedHops, actualHops));
+            }
+        }
+    }
+
+    private static long microsPerLookup(GraphDatabaseService db, long theDoctor, List<Long> characters,
+                                        HopDistance hopDistance)
+    {
+        long start = System.nanoTime();
+        for (long character : characters)
+        {
+            hopDistance.hops(db, character, theDoctor, AwesomenessRatingEngine.MAX_HOPS);
+        }
+        return (System.nanoTime() - start) / 1000 / Math.max(1, characters.size());
+    }
+}
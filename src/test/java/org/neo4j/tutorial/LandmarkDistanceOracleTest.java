@@ -0,0 +1,135 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LandmarkDistanceOracleTest
+{
+    private static EmbeddedDoctorWhoUniverse universe;
+    private AwesomenessFixture fixture;
+
+    @BeforeClass
+    public static void createDatabase() throws Exception
+    {
+        universe = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator());
+    }
+
+    @AfterClass
+    public static void closeTheDatabase()
+    {
+        universe.stop();
+    }
+
+    @Before
+    public void createFixture()
+    {
+        fixture = new AwesomenessFixture();
+    }
+
+    @After
+    public void shutdownFixture()
+    {
+        fixture.shutdown();
+    }
+
+    @Test
+    public void shouldBoundDistancesByTheirDistancesToLandmarks()
+    {
+        GraphDatabaseService db = fixture.db;
+        LandmarkDistanceOracle oracle = new LandmarkDistanceOracle(db, AwesomenessRatingEngine.MAX_HOPS,
+                fixture.theDoctor, fixture.earth);
+        Node somewhereAlongTheChain = fixture.chain[4];
+
+        int exact = new BidirectionalHopDistance().hops(db, fixture.rose.getId(), somewhereAlongTheChain.getId(),
+                AwesomenessRatingEngine.MAX_HOPS);
+
+        assertEquals(6, exact);
+        assertEquals(exact, oracle.distance(fixture.rose.getId(), somewhereAlongTheChain.getId()));
+        assertTrue(oracle.lowerBound(fixture.rose.getId(), somewhereAlongTheChain.getId()) <= exact);
+        assertTrue(oracle.upperBound(fixture.rose.getId(), somewhereAlongTheChain.getId()) >= exact);
+        assertEquals(2, oracle.distance(fixture.rose.getId(), fixture.martha.getId()));
+        assertEquals(HopDistance.UNREACHABLE, oracle.distance(fixture.rose.getId(), fixture.adipose.getId()));
+    }
+
+    @Test
+    public void shouldSearchForTheDistanceWhenTheBoundsDisagree()
+    {
+        LandmarkDistanceOracle oracle = new LandmarkDistanceOracle(fixture.db, AwesomenessRatingEngine.MAX_HOPS,
+                fixture.theDoctor);
+        long rose = fixture.rose.getId();
+
+        assertEquals(1, oracle.lowerBound(rose, fixture.earth.getId()));
+        assertEquals(3, oracle.upperBound(rose, fixture.earth.getId()));
+        assertEquals(1, oracle.distance(rose, fixture.earth.getId()));
+
+        assertEquals(1, oracle.lowerBound(rose, fixture.martha.getId()));
+        assertEquals(2, oracle.upperBound(rose, fixture.martha.getId()));
+        assertEquals(2, oracle.distance(rose, fixture.martha.getId()));
+    }
+
+    @Test
+    public void shouldSearchForNodesCreatedAfterTheOracleWasBuilt()
+    {
+        LandmarkDistanceOracle oracle = new LandmarkDistanceOracle(fixture.db, AwesomenessRatingEngine.MAX_HOPS,
+                fixture.theDoctor, fixture.earth);
+        Node newcomer = createNodeNextTo(fixture.theDoctor);
+        long rose = fixture.rose.getId();
+
+        assertEquals(LandmarkDistanceOracle.UNKNOWN, oracle.upperBound(rose, newcomer.getId()));
+        assertEquals(1, oracle.lowerBound(rose, newcomer.getId()));
+        assertEquals(2, oracle.distance(rose, newcomer.getId()));
+        assertEquals(HopDistance.UNREACHABLE, oracle.distance(rose, createNodeNextTo().getId()));
+    }
+
+    @Test
+    public void shouldOnlySearchAsFarAsAllowedForNodesTheLandmarksDoNotKnow()
+    {
+        LandmarkDistanceOracle oracle = new LandmarkDistanceOracle(fixture.db, 1, fixture.theDoctor);
+        Node newcomer = createNodeNextTo(fixture.theDoctor);
+
+        assertEquals(1, oracle.distance(fixture.theDoctor.getId(), newcomer.getId()));
+        assertEquals(HopDistance.UNREACHABLE, oracle.distance(fixture.rose.getId(), newcomer.getId()));
+    }
+
+    @Test
+    public void shouldBoundDistancesInTheDoctorWhoUniverse()
+    {
+        GraphDatabaseService db = universe.getDatabase();
+        Node rose = db.index().forNodes("characters").get("character", "Rose Tyler").getSingle();
+        Node earth = db.index().forNodes("planets").get("planet", "Earth").getSingle();
+        LandmarkDistanceOracle oracle = LandmarkDistanceOracle.forDoctorWhoUniverse(db);
+
+        int exact = new BidirectionalHopDistance().hops(db, rose.getId(), earth.getId(),
+                AwesomenessRatingEngine.MAX_HOPS);
+
+        assertEquals(exact, oracle.distance(rose.getId(), earth.getId()));
+        assertEquals(1, oracle.distance(rose.getId(), universe.theDoctor().getId()));
+    }
+
+    private Node createNodeNextTo(Node... neighbours)
+    {
+        Transaction tx = fixture.db.beginTx();
+        try
+        {
+            Node node = fixture.db.createNode();
+            for (Node neighbour : neighbours)
+            {
+                node.createRelationshipTo(neighbour, DoctorWhoRelationships.COMPANION_OF);
+            }
+            tx.success();
+            return node;
+        } finally
+        {
+            tx.finish();
+        }
+    }
+}
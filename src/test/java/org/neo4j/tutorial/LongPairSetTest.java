@@ -0,0 +1,64 @@
+package org.neo4j.tutorial;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongPairSetTest
+{
+    @Test
+    public void shouldAddEachPairOnce()
+    {
+        LongPairSet set = new LongPairSet();
+
+        assertTrue(set.add(1, 2));
+        assertFalse(set.add(1, 2));
+        assertTrue(set.add(2, 1));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(1, 2));
+        assertTrue(set.contains(2, 1));
+        assertFalse(set.contains(1, 1));
+    }
+
+    @Test
+    public void shouldKeepEveryPairWhenGrowing()
+    {
+        LongPairSet set = new LongPairSet(1);
+        for (long first = 0; first < 1000; first++)
+        {
+            assertTrue(set.add(first, first * 31));
+            assertTrue(set.add(first, Long.MAX_VALUE - first));
+        }
+
+        assertEquals(2000, set.size());
+        for (long first = 0; first < 1000; first++)
+        {
+            assertTrue(set.contains(first, first * 31));
+            assertTrue(set.contains(first, Long.MAX_VALUE - first));
+            assertFalse(set.contains(first, first * 31 + 1));
+        }
+    }
+
+    @Test
+    public void shouldForgetEverythingWhenCleared()
+    {
+        LongPairSet set = new LongPairSet();
+        for (long i = 0; i < 100; i++)
+        {
+            set.add(i, i);
+        }
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(7, 7));
+        assertTrue(set.add(7, 7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseNegativePairs()
+    {
+        new LongPairSet().add(1, -1);
+    }
+}
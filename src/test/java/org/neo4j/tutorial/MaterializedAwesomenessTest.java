@@ -0,0 +1,169 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.tutorial.AwesomenessFixture.UNRATED;
+import static org.neo4j.tutorial.AwesomenessFixture.ratingFor;
+import static org.neo4j.tutorial.MaterializedAwesomeness.AWESOMENESS;
+import static org.neo4j.tutorial.MaterializedAwesomeness.awesomenessOf;
+
+public class MaterializedAwesomenessTest
+{
+    private AwesomenessFixture fixture;
+    private MaterializedAwesomeness materialized;
+
+    @Before
+    public void materialize()
+    {
+        fixture = new AwesomenessFixture();
+        materialized = MaterializedAwesomeness.materialize(fixture.db);
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        materialized.stop();
+        fixture.shutdown();
+    }
+
+    @Test
+    public void shouldRateEveryNodeWithinMaxHopsWhenMaterialized()
+    {
+        for (Map.Entry<Node, Integer> node : fixture.hops().entrySet())
+        {
+            assertRated(node.getValue(), node.getKey());
+        }
+    }
+
+    @Test
+    public void shouldKeepTheRatingOfANodeWithAnotherShortestPathLeft()
+    {
+        Transaction tx = fixture.db.beginTx();
+        try
+        {
+            fixture.roseComesFromEarth.delete();
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertRated(1, fixture.rose);
+        assertRated(2, fixture.earth);
+        assertRated(AwesomenessRatingEngine.MAX_HOPS, fixture.furthestRated());
+    }
+
+    @Test
+    public void shouldUnrateEverythingCutOffByARemovedRelationship()
+    {
+        Transaction tx = fixture.db.beginTx();
+        try
+        {
+            fixture.chain[0].getSingleRelationship(DoctorWhoRelationships.OWNS, Direction.INCOMING)
+                            .delete();
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertRated(2, fixture.earth);
+        for (Node thing : fixture.chain)
+        {
+            assertRated(UNRATED, thing);
+        }
+    }
+
+    @Test
+    public void shouldRateAgainAroundDeletedNodes()
+    {
+        Transaction tx = fixture.db.beginTx();
+        try
+        {
+            delete(fixture.martha);
+            delete(fixture.chain[3]);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertRated(2, fixture.earth);
+        assertRated(5, fixture.chain[2]);
+        for (int i = 4; i < fixture.chain.length; i++)
+        {
+            assertRated(UNRATED, fixture.chain[i]);
+        }
+    }
+
+    @Test
+    public void shouldRateNodesBeyondMaxHopsOnceAShortcutBringsThemCloser()
+    {
+        Transaction tx = fixture.db.beginTx();
+        try
+        {
+            fixture.theDoctor.createRelationshipTo(fixture.chain[10], DoctorWhoRelationships.OWNS);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertRated(1, fixture.chain[10]);
+        assertRated(2, fixture.chain[9]);
+        assertRated(2, fixture.chain[11]);
+        assertRated(4, fixture.beyondMaxHops());
+        assertRated(7, fixture.chain[4]);
+        assertRated(UNRATED, fixture.adipose);
+    }
+
+    @Test
+    public void shouldRateEverythingAgainWhenTheDoctorIsUnrated()
+    {
+        Transaction tx = fixture.db.beginTx();
+        try
+        {
+            fixture.theDoctor.removeProperty(AWESOMENESS);
+            fixture.adipose.createRelationshipTo(fixture.rose, DoctorWhoRelationships.ENEMY_OF);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+
+        assertRated(0, fixture.theDoctor);
+        assertRated(2, fixture.adipose);
+        assertRated(3, fixture.adiposeThree);
+        for (Map.Entry<Node, Integer> node : fixture.hops().entrySet())
+        {
+            if (!node.getKey().equals(fixture.adipose) && !node.getKey().equals(fixture.adiposeThree))
+            {
+                assertRated(node.getValue(), node.getKey());
+            }
+        }
+    }
+
+    private static void delete(Node node)
+    {
+        for (Relationship relationship : node.getRelationships())
+        {
+            relationship.delete();
+        }
+        node.delete();
+    }
+
+    private static void assertRated(int hops, Node node)
+    {
+        assertEquals(hops != UNRATED, node.hasProperty(AWESOMENESS));
+        assertEquals(ratingFor(hops), awesomenessOf(node), 0.01);
+    }
+}
@@ -0,0 +1,54 @@
+package org.neo4j.tutorial;
+
+import java.util.Arrays;
+
+/**
+ * Generates the Doctor Who universe one phase after the other and with independent phases in
+ * parallel, and reports the wall time of each round, so the two ingest modes can be compared.
+ * The first rounds warm up the JIT and are not counted in the medians.
+ * <p/>
+ * Not a unit test: run it from the command line or the IDE.
+ */
+public class ParallelIngestBenchmark
+{
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 7;
+    private static final CommitPolicy COMMIT_POLICY = CommitPolicy.commitEvery(100);
+
+    public static void main(String[] args)
+    {
+        long[] sequential = new long[ROUNDS];
+        long[] parallel = new long[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++)
+        {
+            long sequentialMillis = generate(IngestMode.TRANSACTIONAL);
+            long parallelMillis = generate(IngestMode.PARALLEL);
+            if (round >= 0)
+            {
+                sequential[round] = sequentialMillis;
+                parallel[round] = parallelMillis;
+            }
+        }
+
+        System.out.println("round\tsequential (ms)\tparallel (ms)");
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            System.out.println(String.format("%d\t%d\t%d", round + 1, sequential[round], parallel[round]));
+        }
+        System.out.println(String.format("median\t%d\t%d", median(sequential), median(parallel)));
+    }
+
+    private static long generate(IngestMode ingestMode)
+    {
+        long start = System.nanoTime();
+        new DoctorWhoUniverseGenerator(ingestMode, COMMIT_POLICY);
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static long median(long[] times)
+    {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
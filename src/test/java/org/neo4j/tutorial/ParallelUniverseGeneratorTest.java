@@ -0,0 +1,137 @@
+package org.neo4j.tutorial;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+public class ParallelUniverseGeneratorTest
+{
+
+    private static EmbeddedDoctorWhoUniverse universe;
+    private static EmbeddedDoctorWhoUniverse sequentialUniverse;
+    private static DatabaseHelper databaseHelper;
+
+    @BeforeClass
+    public static void startDatabase() throws Exception
+    {
+        universe = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator(IngestMode.PARALLEL,
+                CommitPolicy.commitEvery(100)));
+        sequentialUniverse = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator(IngestMode.TRANSACTIONAL,
+                CommitPolicy.commitEvery(100)));
+        databaseHelper = new DatabaseHelper(universe.getDatabase());
+    }
+
+    @AfterClass
+    public static void stopDatabase()
+    {
+        universe.stop();
+        sequentialUniverse.stop();
+    }
+
+    @Test
+    public void shouldCreateAsManyNodesAsASequentialIngest()
+    {
+        assertEquals(countNodes(sequentialUniverse.getDatabase()), countNodes(universe.getDatabase()));
+    }
+
+    @Test
+    public void shouldCreateAsManyRelationshipsOfEachTypeAsASequentialIngest()
+    {
+        assertEquals(countRelationshipsByType(sequentialUniverse.getDatabase()),
+                countRelationshipsByType(universe.getDatabase()));
+    }
+
+    @Test
+    public void shouldChainTheEpisodesInTheSameOrderAsASequentialIngest()
+    {
+        List<String> episodes = episodesAlongTheNextChain(sequentialUniverse.getDatabase());
+
+        assertFalse(episodes.isEmpty());
+        assertEquals(episodes, episodesAlongTheNextChain(universe.getDatabase()));
+    }
+
+    @Test
+    public void shouldCreateEachPlanetOnce()
+    {
+        int numberOfPlanetsMentionedInTVEpisodes = 447;
+        assertEquals(numberOfPlanetsMentionedInTVEpisodes, databaseHelper.count(universe.getDatabase()
+                                                                                        .index()
+                                                                                        .forNodes("planets")
+                                                                                        .query("planet", "*")));
+        assertEquals(1, universe.getDatabase().index().forNodes("planets").get("planet", "Gallifrey").size());
+    }
+
+    @Test
+    public void shouldCreateSharedNodesOnce()
+    {
+        assertEquals(1, universe.getDatabase().index().forNodes("characters").get("character", "Doctor").size());
+        assertEquals(1, universe.getDatabase().index().forNodes("species").get("species", "Dalek").size());
+    }
+
+    @Test
+    public void shouldHave12ActorsThatHavePlayedTheDoctor()
+    {
+        Node theDoctor = universe.theDoctor();
+        assertNotNull(theDoctor);
+        assertEquals(12, databaseHelper.destructivelyCountRelationships(theDoctor.getRelationships(
+                DoctorWhoRelationships.PLAYED, Direction.INCOMING)));
+    }
+
+    private static int countNodes(GraphDatabaseService db)
+    {
+        int nodes = 0;
+        for (Node ignored : GlobalGraphOperations.at(db).getAllNodes())
+        {
+            nodes++;
+        }
+        return nodes;
+    }
+
+    private static Map<String, Integer> countRelationshipsByType(GraphDatabaseService db)
+    {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (Relationship relationship : GlobalGraphOperations.at(db).getAllRelationships())
+        {
+            String type = relationship.getType().name();
+            Integer count = counts.get(type);
+            counts.put(type, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    private static List<String> episodesAlongTheNextChain(GraphDatabaseService db)
+    {
+        Node episode = null;
+        for (Node candidate : db.index().forNodes("episodes").query("episode", "*"))
+        {
+            if (!candidate.hasRelationship(DoctorWhoRelationships.NEXT, Direction.INCOMING))
+            {
+                episode = candidate;
+                break;
+            }
+        }
+
+        List<String> episodes = new ArrayList<String>();
+        while (episode != null)
+        {
+            episodes.add(String.valueOf(episode.getProperty("episode")));
+            Relationship next = episode.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING);
+            episode = next == null ? null : next.getEndNode();
+        }
+        return episodes;
+    }
+}
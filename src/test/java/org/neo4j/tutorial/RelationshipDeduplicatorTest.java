@@ -0,0 +1,98 @@
+package org.neo4j.tutorial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RelationshipDeduplicatorTest
+{
+    private GraphDatabaseService db;
+    private Transaction tx;
+    private Node rose;
+    private Node theDoctor;
+
+    @Before
+    public void createNodes()
+    {
+        db = DatabaseHelper.createDatabase();
+        tx = db.beginTx();
+        rose = db.createNode();
+        theDoctor = db.createNode();
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        tx.finish();
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldClaimEachRelationshipOnce()
+    {
+        RelationshipDeduplicator relationships = new RelationshipDeduplicator();
+
+        assertTrue(relationships.claim(rose, DoctorWhoRelationships.COMPANION_OF, theDoctor));
+        assertFalse(relationships.claim(rose, DoctorWhoRelationships.COMPANION_OF, theDoctor));
+    }
+
+    @Test
+    public void shouldTellTypesAndDirectionsApart()
+    {
+        RelationshipDeduplicator relationships = new RelationshipDeduplicator();
+        relationships.claim(rose, DoctorWhoRelationships.COMPANION_OF, theDoctor);
+
+        assertTrue(relationships.claim(rose, DoctorWhoRelationships.LOVES, theDoctor));
+        assertTrue(relationships.claim(theDoctor, DoctorWhoRelationships.COMPANION_OF, rose));
+    }
+
+    @Test
+    public void shouldNotClaimRelationshipsThatAreAlreadyInTheDatabase()
+    {
+        rose.createRelationshipTo(theDoctor, DoctorWhoRelationships.COMPANION_OF);
+        RelationshipDeduplicator relationships = new RelationshipDeduplicator();
+
+        assertFalse(relationships.claim(rose, DoctorWhoRelationships.COMPANION_OF, theDoctor));
+        assertTrue(relationships.claim(theDoctor, DoctorWhoRelationships.COMPANION_OF, rose));
+    }
+
+    @Test
+    public void shouldClaimAgainOnceCleared()
+    {
+        RelationshipDeduplicator relationships = new RelationshipDeduplicator();
+        relationships.claim(rose, DoctorWhoRelationships.COMPANION_OF, theDoctor);
+        relationships.clear();
+
+        assertTrue(relationships.claim(rose, DoctorWhoRelationships.COMPANION_OF, theDoctor));
+    }
+
+    @Test
+    public void shouldOnlyCreateOneRelationshipThroughTheScope()
+    {
+        GenerationScope scope = GenerationScope.open(db, true);
+        try
+        {
+            CharacterBuilder.ensureCharacterIsInDb("Doctor", db);
+            EpisodeBuilder.episode(1)
+                          .title("Rose")
+                          .companion("Rose Tyler")
+                          .companion("Rose Tyler")
+                          .fact(db);
+
+            Node roseTyler = scope.lookup("characters", "character", "Rose Tyler");
+            assertEquals(1, new DatabaseHelper(db).destructivelyCountRelationships(roseTyler.getRelationships(
+                    DoctorWhoRelationships.APPEARED_IN, Direction.OUTGOING)));
+        } finally
+        {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.neo4j.tutorial;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SyntheticUniverseGeneratorTest
+{
+    @Test
+    public void shouldGenerateTheSameUniverseFromTheSameSeed()
+    {
+        assertEquals(appearancesPerEpisode(7), appearancesPerEpisode(7));
+    }
+
+    @Test
+    public void shouldChainEveryEpisodeInOrder()
+    {
+        GraphDatabaseService db = DatabaseHelper.createDatabase(smallUniverse(1).generate());
+        try
+        {
+            Node episode = db.index().forNodes("episodes").get("episode", "1").getSingle();
+            assertNotNull(episode);
+
+            int count = 1;
+            while (episode.hasRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING))
+            {
+                episode = episode.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING).getEndNode();
+                count++;
+            }
+            assertEquals(200, count);
+            assertEquals("200", episode.getProperty("episode"));
+        } finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void shouldCastEveryoneWhenAnEpisodeNeedsTheWholeOfASkewedCast()
+    {
+        GraphDatabaseService db = DatabaseHelper.createDatabase(SyntheticUniverseGenerator.syntheticUniverse()
+                                                                                         .withEpisodes(20)
+                                                                                         .withCharacters(10)
+                                                                                         .withCompanionShare(0.5)
+                                                                                         .withCompanionsPerEpisode(5)
+                                                                                         .withEnemiesPerEpisode(5)
+                                                                                         .withSkew(20)
+                                                                                         .generate());
+        try
+        {
+            for (int i = 1; i <= 20; i++)
+            {
+                Node episode = db.index().forNodes("episodes").get("episode", String.valueOf(i)).getSingle();
+                Set<Node> cast = new HashSet<Node>();
+                for (Relationship appearance : episode.getRelationships(DoctorWhoRelationships.APPEARED_IN,
+                        Direction.INCOMING))
+                {
+                    if (appearance.getStartNode().hasProperty("character"))
+                    {
+                        assertTrue(cast.add(appearance.getStartNode()));
+                    }
+                }
+                assertEquals(10, cast.size());
+            }
+        } finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldCountTheRelationshipsItCreates()
+    {
+        SyntheticUniverseGenerator generator = smallUniverse(3);
+        GraphDatabaseService db = DatabaseHelper.createDatabase(generator.generate());
+        try
+        {
+            long relationships = 0;
+            for (Relationship ignored : GlobalGraphOperations.at(db).getAllRelationships())
+            {
+                relationships++;
+            }
+            assertEquals(relationships, generator.getRelationshipCount());
+        } finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectANegativeNumberOfEpisodes()
+    {
+        SyntheticUniverseGenerator.syntheticUniverse().withEpisodes(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectANegativeNumberOfCharacters()
+    {
+        SyntheticUniverseGenerator.syntheticUniverse().withCharacters(-1);
+    }
+
+    private String appearancesPerEpisode(long seed)
+    {
+        GraphDatabaseService db = DatabaseHelper.createDatabase(smallUniverse(seed).generate());
+        try
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i <= 200; i++)
+            {
+                Node episode = db.index().forNodes("episodes").get("episode", String.valueOf(i)).getSingle();
+                sb.append(new DatabaseHelper(db).destructivelyCountRelationships(
+                        episode.getRelationships(DoctorWhoRelationships.APPEARED_IN, Direction.INCOMING)));
+                sb.append(",");
+            }
+            return sb.toString();
+        } finally
+        {
+            db.shutdown();
+        }
+    }
+
+    private SyntheticUniverseGenerator smallUniverse(long seed)
+    {
+        return SyntheticUniverseGenerator.syntheticUniverse()
+                                         .withSeed(seed)
+                                         .withEpisodes(200)
+                                         .withCharacters(100)
+                                         .withSpecies(10)
+                                         .withPlanets(20)
+                                         .withThings(5);
+    }
+}
@@ -0,0 +1,91 @@
+package org.neo4j.tutorial;
+
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UniverseStoreCacheTest
+{
+    @Test
+    public void shouldKeyTheCacheOnAStableRevision()
+    {
+        assertEquals(UniverseStoreCache.revision(), UniverseStoreCache.revision());
+    }
+
+    @Test
+    public void shouldKeyTheCacheOnEveryClassThatMayChangeTheData() throws Exception
+    {
+        List<String> dataClassFiles = UniverseStoreCache.dataClassFiles();
+
+        assertTrue(dataClassFiles.contains("org/neo4j/tutorial/DatabaseHelper.class"));
+        assertTrue(dataClassFiles.contains("org/neo4j/tutorial/GenerationScope.class"));
+        assertTrue(dataClassFiles.contains("org/neo4j/tutorial/RelationshipDeduplicator.class"));
+        assertTrue(dataClassFiles.contains("org/neo4j/tutorial/ChunkedTransaction.class"));
+        assertTrue(dataClassFiles.contains("org/neo4j/tutorial/GenerationScope$InvalidateOnRollback.class"));
+        assertTrue(dataClassFiles.contains("org/neo4j/tutorial/DoctorWhoUniverseGenerator$1.class"));
+    }
+
+    @Test
+    public void shouldLeaveSubpackagesOutOfTheRevision() throws Exception
+    {
+        for (String dataClassFile : UniverseStoreCache.dataClassFiles())
+        {
+            assertEquals(dataClassFile, -1, dataClassFile.indexOf('/', "org/neo4j/tutorial/".length()));
+        }
+    }
+
+    @Test
+    public void shouldBuildTheGoldenStoreOnceAndHandOutPrivateCopies()
+    {
+        File cacheDir = DatabaseHelper.createTempDatabaseDir();
+        UniverseStoreCache cache = new UniverseStoreCache(cacheDir);
+        File supersededRevision = new File(cacheDir, "0123456789abcdef0123456789abcdef01234567");
+        assertTrue(new File(supersededRevision, "neostore").mkdirs());
+
+        File golden = cache.goldenStore();
+        long builtAt = golden.lastModified();
+        assertFalse(supersededRevision.exists());
+        assertArrayEquals(new String[]{golden.getName()}, cacheDir.list());
+
+        String first = cache.copyOfUniverse();
+        String second = cache.copyOfUniverse();
+
+        assertEquals(builtAt, cache.goldenStore().lastModified());
+        assertFalse(first.equals(second));
+
+        GraphDatabaseService db = DatabaseHelper.createDatabase(first);
+        try
+        {
+            Transaction tx = db.beginTx();
+            try
+            {
+                Node doctor = db.index().forNodes("characters").get("character", "Doctor").getSingle();
+                assertNotNull(doctor);
+                doctor.setProperty("character", "The Valeyard");
+                tx.success();
+            } finally
+            {
+                tx.finish();
+            }
+        } finally
+        {
+            db.shutdown();
+        }
+
+        GraphDatabaseService untouched = DatabaseHelper.createDatabase(second);
+        try
+        {
+            Node doctor = untouched.index().forNodes("characters").get("character", "Doctor").getSingle();
+            assertEquals("Doctor", doctor.getProperty("character"));
+        } finally
+        {
+            untouched.shutdown();
+        }
+    }
+}
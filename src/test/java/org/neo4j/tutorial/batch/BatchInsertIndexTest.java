@@ -0,0 +1,144 @@
+package org.neo4j.tutorial.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.ErrorState;
+import org.neo4j.graphdb.event.KernelEventHandler;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.RelationshipIndex;
+import org.neo4j.tutorial.DatabaseHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchInsertIndexTest
+{
+    private BatchInsertGraphDatabase db;
+    private boolean shutdown = false;
+
+    @Before
+    public void createDatabase()
+    {
+        db = new BatchInsertGraphDatabase(DatabaseHelper.createTempDatabaseDir()
+                                                        .getAbsolutePath());
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        if (!shutdown)
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldOnlyPutAnEntryThatIsAbsent()
+    {
+        Index<Node> index = db.index()
+                              .forNodes("characters");
+        Node rose = db.createNode();
+        Node anotherRose = db.createNode();
+
+        assertNull(index.putIfAbsent(rose, "character", "Rose Tyler"));
+        assertEquals(rose, index.putIfAbsent(anotherRose, "character", "Rose Tyler"));
+        assertEquals(rose, index.get("character", "Rose Tyler")
+                                .getSingle());
+        assertSame(db, index.getGraphDatabase());
+    }
+
+    @Test
+    public void shouldQueryAndRemoveEntries()
+    {
+        Index<Node> index = db.index()
+                              .forNodes("characters");
+        Node rose = db.createNode();
+        Node martha = db.createNode();
+        index.add(rose, "character", "Rose Tyler");
+        index.add(rose, "companion", "yes");
+        index.add(martha, "character", "Martha Jones");
+        index.add(martha, "companion", "yes");
+
+        assertEquals(2, index.query("character", "*")
+                             .size());
+
+        index.remove(rose, "companion", "yes");
+        assertEquals(martha, index.get("companion", "yes")
+                                  .getSingle());
+        assertEquals(martha, index.query("companion", "yes")
+                                  .getSingle());
+        assertEquals(rose, index.query("character", "Rose*")
+                                .getSingle());
+
+        index.remove(martha);
+        assertNull(index.get("character", "Martha Jones")
+                        .getSingle());
+        assertEquals(1, index.query("character", "*")
+                             .size());
+    }
+
+    @Test
+    public void shouldIndexRelationships()
+    {
+        RelationshipIndex index = db.index()
+                                    .forRelationships("companions");
+        Node theDoctor = db.createNode();
+        Node rose = db.createNode();
+        Node martha = db.createNode();
+        Relationship roseIsACompanion = rose.createRelationshipTo(theDoctor, DynamicRelationshipType.withName(
+                "COMPANION_OF"));
+        Relationship marthaIsACompanion = martha.createRelationshipTo(theDoctor, DynamicRelationshipType.withName(
+                "COMPANION_OF"));
+        index.add(roseIsACompanion, "since", "Rose");
+        index.add(marthaIsACompanion, "since", "Smith and Jones");
+
+        assertTrue(db.index()
+                     .existsForRelationships("companions"));
+        assertEquals(2, index.query("since", "*")
+                             .size());
+        assertEquals(marthaIsACompanion, index.get("since", "Smith and Jones", martha, null)
+                                              .getSingle());
+        assertNull(index.get("since", "Smith and Jones", rose, null)
+                        .getSingle());
+    }
+
+    @Test
+    public void shouldTellKernelEventHandlersAboutShutdown()
+    {
+        final int[] shutdowns = {0};
+        GraphDatabaseService service = db;
+        service.registerKernelEventHandler(new KernelEventHandler()
+        {
+            public void beforeShutdown()
+            {
+                shutdowns[0]++;
+            }
+
+            public void kernelPanic(ErrorState error)
+            {
+            }
+
+            public Object getResource()
+            {
+                return null;
+            }
+
+            public ExecutionOrder orderComparedTo(KernelEventHandler other)
+            {
+                return ExecutionOrder.DOESNT_MATTER;
+            }
+        });
+
+        db.shutdown();
+        shutdown = true;
+
+        assertEquals(1, shutdowns[0]);
+    }
+}
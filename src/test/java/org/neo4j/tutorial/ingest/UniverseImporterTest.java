@@ -0,0 +1,154 @@
+package org.neo4j.tutorial.ingest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.tutorial.ChunkedTransaction;
+import org.neo4j.tutorial.DatabaseHelper;
+import org.neo4j.tutorial.DoctorWhoRelationships;
+import org.neo4j.tutorial.EpisodeBuilder;
+import org.neo4j.tutorial.GenerationScope;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class UniverseImporterTest
+{
+    private GraphDatabaseService db;
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void createDatabase()
+    {
+        db = DatabaseHelper.createDatabase();
+        databaseHelper = new DatabaseHelper(db);
+    }
+
+    @After
+    public void shutdownDatabase()
+    {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldImportCharactersFromCsv() throws Exception
+    {
+        String csv = "character,species,companion,enemy,planet,regenerations\n"
+                + "Doctor,Timelord,,,Gallifrey,William Hartnell;Patrick Troughton@1966\n"
+                + "Master,Timelord,,true,Gallifrey,\n"
+                + "\"Sarah Jane Smith\",Human,true,,Earth,\n";
+
+        int rows = new UniverseImporter(db).withBatchSize(2)
+                                           .importCharacters(ImportFormat.CSV.rowsFrom(new StringReader(csv)));
+
+        assertEquals(3, rows);
+        Node theDoctor = characterNamed("Doctor");
+        assertNotNull(theDoctor);
+        assertEquals(1, databaseHelper.destructivelyCountRelationships(
+                theDoctor.getRelationships(DoctorWhoRelationships.COMPANION_OF, Direction.INCOMING)));
+        assertEquals(1, databaseHelper.destructivelyCountRelationships(
+                theDoctor.getRelationships(DoctorWhoRelationships.ENEMY_OF, Direction.INCOMING)));
+
+        Node hartnell = db.index().forNodes("actors").get("actor", "William Hartnell").getSingle();
+        Relationship regeneration = hartnell.getSingleRelationship(DoctorWhoRelationships.REGENERATED_TO,
+                                                                   Direction.OUTGOING);
+        assertEquals(1966, regeneration.getProperty("year"));
+    }
+
+    @Test
+    public void shouldImportEpisodesAndPropsFromJsonLines() throws Exception
+    {
+        UniverseImporter importer = new UniverseImporter(db).withBatchSize(1);
+        importer.importCharacters(ImportFormat.JSON_LINES.rowsFrom(new StringReader(
+                "{\"character\":\"Doctor\"}\n")));
+
+        String episodes = "{\"episode\":\"2\",\"title\":\"The Daleks\",\"doctors\":[\"William Hartnell\"],"
+                + "\"companions\":[\"Susan Foreman\"],\"enemySpecies\":[\"Dalek\"]}\n"
+                + "\n"
+                + "{\"episode\":\"3\",\"title\":\"The Edge of Destruction\",\"doctors\":[\"William Hartnell\"]}\n";
+        assertEquals(2, importer.importEpisodes(ImportFormat.JSON_LINES.rowsFrom(new StringReader(episodes))));
+
+        String props = "{\"episode\":\"The Daleks\",\"shoulder\":\"Dalek 1\",\"skirt\":\"Dalek 1\",\"prop\":\"Dalek 1\"}\n"
+                + "{\"episode\":\"The Daleks\",\"shoulder\":\"Dalek 2\",\"skirt\":\"Dalek 2\",\"prop\":\"Dalek 2\"}\n";
+        assertEquals(2, importer.importDalekProps(ImportFormat.JSON_LINES.rowsFrom(new StringReader(props))));
+
+        Node theDaleks = db.index().forNodes("episodes").get("title", "The Daleks").getSingle();
+        Node next = theDaleks.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING).getEndNode();
+        assertEquals("The Edge of Destruction", next.getProperty("title"));
+        assertEquals(1, databaseHelper.destructivelyCountRelationships(
+                theDaleks.getRelationships(DoctorWhoRelationships.USED_IN, Direction.INCOMING)));
+        assertNotNull(db.index().forNodes("props").get("prop", "Dalek 2").getSingle());
+    }
+
+    @Test
+    public void shouldLinkEpisodesReadOutOfOrderByEpisodeNumber() throws Exception
+    {
+        UniverseImporter importer = new UniverseImporter(db).withEpisodesSortedByNumber();
+        importer.importCharacters(ImportFormat.JSON_LINES.rowsFrom(new StringReader(
+                "{\"character\":\"Doctor\"}\n")));
+
+        String csv = "episode,title,doctors\n"
+                + "10,The Web Planet,William Hartnell\n"
+                + "2,The Daleks,William Hartnell\n"
+                + "9a,The Romans,William Hartnell\n";
+        assertEquals(3, importer.importEpisodes(ImportFormat.CSV.rowsFrom(new StringReader(csv))));
+
+        Node episode = db.index().forNodes("episodes").get("title", "The Daleks").getSingle();
+        assertFalse(episode.hasRelationship(DoctorWhoRelationships.PREVIOUS, Direction.OUTGOING));
+        episode = episode.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING).getEndNode();
+        assertEquals("The Romans", episode.getProperty("title"));
+        episode = episode.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING).getEndNode();
+        assertEquals("The Web Planet", episode.getProperty("title"));
+        assertFalse(episode.hasRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING));
+    }
+
+    @Test
+    public void shouldLeaveTheEpisodesOfTheCallersScopeAloneWhenAnImportIsRejected() throws Exception
+    {
+        GenerationScope scope = GenerationScope.open(db, true);
+        try
+        {
+            addEpisode(scope, "1", "An Unearthly Child");
+            try
+            {
+                new UniverseImporter(db).importEpisodes(ImportFormat.CSV.rowsFrom(new StringReader(
+                        "episode,title\n3,The Edge of Destruction\n")));
+                fail("Expected the import to be rejected once the scope has sequenced episodes");
+            } catch (IllegalStateException expected)
+            {
+            }
+            addEpisode(scope, "2", "The Daleks");
+
+            Node first = db.index().forNodes("episodes").get("title", "An Unearthly Child").getSingle();
+            assertEquals("The Daleks", first.getSingleRelationship(DoctorWhoRelationships.NEXT, Direction.OUTGOING)
+                                            .getEndNode()
+                                            .getProperty("title"));
+        } finally
+        {
+            scope.close();
+        }
+    }
+
+    private void addEpisode(GenerationScope scope, String episodeNumber, String title)
+    {
+        ChunkedTransaction tx = scope.beginTx();
+        try
+        {
+            EpisodeBuilder.episode(episodeNumber).title(title).fact(db);
+            tx.success();
+        } finally
+        {
+            tx.finish();
+        }
+    }
+
+    private Node characterNamed(String name)
+    {
+        return db.index().forNodes("characters").get("character", name).getSingle();
+    }
+}
@@ -0,0 +1,85 @@
+package org.neo4j.tutorial.server.plugins;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.tutorial.DoctorWhoUniverseGenerator;
+import org.neo4j.tutorial.EmbeddedDoctorWhoUniverse;
+import org.neo4j.tutorial.server.rest.RelationshipDescription;
+import org.neo4j.tutorial.server.rest.ReturnFilter;
+import org.neo4j.tutorial.server.rest.TraversalDescription;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class TypedTraversalPluginTest
+{
+
+    private static EmbeddedDoctorWhoUniverse universe;
+    private final TypedTraversalPlugin plugin = new TypedTraversalPlugin();
+
+    @BeforeClass
+    public static void createDatabase() throws Exception
+    {
+        universe = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator());
+    }
+
+    @AfterClass
+    public static void closeTheDatabase()
+    {
+        universe.stop();
+    }
+
+    @Test
+    public void shouldReturnTheNodesTheFilterAccepts()
+    {
+        Set<String> characters = new HashSet<String>();
+        for (Node node : plugin.traverseNodes(universe.theDoctor(), companionsNamed("Rose Tyler", "Martha Jones")))
+        {
+            characters.add((String) node.getProperty("character"));
+        }
+
+        assertEquals(2, characters.size());
+        assertTrue(characters.contains("Rose Tyler"));
+        assertTrue(characters.contains("Martha Jones"));
+    }
+
+    @Test
+    public void shouldReturnThePathsTheFilterAccepts()
+    {
+        int paths = 0;
+        for (Path path : plugin.traversePaths(universe.theDoctor(), companionsNamed("Rose Tyler")))
+        {
+            assertEquals(universe.theDoctor(), path.startNode());
+            assertEquals(1, path.length());
+            assertEquals("Rose Tyler", path.endNode()
+                                           .getProperty("character"));
+            paths++;
+        }
+        assertEquals(1, paths);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseATraversalThatIsNotJson()
+    {
+        plugin.traverseNodes(universe.theDoctor(), "{ not json");
+    }
+
+    private static String companionsNamed(String... names)
+    {
+        ReturnFilter[] named = new ReturnFilter[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            named[i] = ReturnFilter.propertyEquals("character", names[i]);
+        }
+        TraversalDescription description = new TraversalDescription();
+        description.setRelationships(new RelationshipDescription("COMPANION_OF", RelationshipDescription.IN));
+        description.setReturnFilter(ReturnFilter.and(ReturnFilter.allButStartNode(), ReturnFilter.or(named)));
+        return description.toJson();
+    }
+}
@@ -0,0 +1,80 @@
+package org.neo4j.tutorial.server.plugins;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.tutorial.DoctorWhoUniverseGenerator;
+import org.neo4j.tutorial.EmbeddedDoctorWhoUniverse;
+import org.neo4j.tutorial.server.rest.RelationshipDescription;
+import org.neo4j.tutorial.server.rest.ReturnFilter;
+import org.neo4j.tutorial.server.rest.TraversalDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class TypedTraversalsTest
+{
+
+    private static EmbeddedDoctorWhoUniverse universe;
+
+    @BeforeClass
+    public static void createDatabase() throws Exception
+    {
+        universe = new EmbeddedDoctorWhoUniverse(new DoctorWhoUniverseGenerator());
+    }
+
+    @AfterClass
+    public static void closeTheDatabase()
+    {
+        universe.stop();
+    }
+
+    @Test
+    public void shouldReturnOnlyWhatTheTypedFilterAccepts() throws Exception
+    {
+        TraversalDescription description = new TraversalDescription();
+        description.setRelationships(new RelationshipDescription("COMPANION_OF", RelationshipDescription.IN));
+        description.setReturnFilter(ReturnFilter.and(ReturnFilter.relationshipTypeIn("COMPANION_OF"),
+                                                     ReturnFilter.propertyEquals("character", "Rose Tyler")));
+        assertTrue(description.needsTypedTraversalPlugin());
+
+        List<Node> nodes = new ArrayList<Node>();
+        for (Node node : TypedTraversals.describe(JsonHelper.jsonToMap(description.toJson()))
+                                        .traverse(universe.theDoctor())
+                                        .nodes())
+        {
+            nodes.add(node);
+        }
+
+        assertEquals(1, nodes.size());
+        assertEquals("Rose Tyler", nodes.get(0)
+                                        .getProperty("character"));
+    }
+
+    @Test
+    public void shouldMapTheServersOwnFiltersToBuiltins() throws Exception
+    {
+        TraversalDescription description = new TraversalDescription();
+        description.setReturnFilter(ReturnFilter.not(ReturnFilter.allButStartNode()));
+        assertTrue(description.needsTypedTraversalPlugin());
+
+        int returned = 0;
+        for (Node node : TypedTraversals.describe(JsonHelper.jsonToMap(description.toJson()))
+                                        .traverse(universe.theDoctor())
+                                        .nodes())
+        {
+            assertEquals(universe.theDoctor(), node);
+            returned++;
+        }
+        assertEquals(1, returned);
+
+        description.setReturnFilter(ReturnFilter.allButStartNode());
+        assertFalse(description.needsTypedTraversalPlugin());
+    }
+}
@@ -3,6 +3,13 @@ package org.neo4j.tutorial.server.rest;
 import org.junit.Test;
 import org.neo4j.helpers.collection.MapUtil;
 
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
 import static org.junit.Assert.assertEquals;
 
 public class BatchCommandBuilderTests
@@ -99,4 +106,83 @@ public class BatchCommandBuilderTests
                                                  .build();
         assertEquals("[{\"method\":\"DELETE\",\"to\":\"/node/123\"}]", result);
     }
+
+    @Test
+    public void shouldEscapeValues()
+    {
+        String result = new BatchCommandBuilder().createNode(MapUtil.stringMap("quote", "\"Allons-y!\"\n"))
+                                                 .build();
+        assertEquals("[{\"method\":\"POST\",\"to\":\"/node\",\"body\":{\"quote\":\"\\\"Allons-y!\\\"\\n\"}}]", result);
+    }
+
+    @Test
+    public void shouldStreamCommandsToWriter() throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        BatchCommandBuilder batch = BatchCommandBuilder.streamingTo(writer);
+        batch.createNode(0, MapUtil.stringMap("key", "value"))
+             .deleteNodeOrRelationship("/node/123");
+        batch.close();
+
+        assertEquals(
+                "[{\"method\":\"POST\",\"to\":\"/node\",\"body\":{\"key\":\"value\"},\"id\":0},{\"method\":\"DELETE\",\"to\":\"/node/123\"}]",
+                writer.toString());
+    }
+
+    @Test
+    public void shouldResolveReferencesToJobsInEarlierChunks()
+    {
+        BatchCommand command = BatchCommand.createRelationship(3, "{1}/relationships", "{2}", "KNOWS", null);
+        assertEquals(new TreeSet<Integer>(Arrays.asList(1, 2)), command.references());
+
+        BatchCommand resolved = command.resolve(Collections.singletonMap(1, "http://localhost:7474/db/data/node/5"),
+                                                "http://localhost:7474/db/data/");
+        String result = new BatchCommandBuilder().add(resolved)
+                                                 .build();
+        assertEquals("[{\"method\":\"POST\",\"to\":\"/node/5/relationships\",\"body\":{\"to\":\"{2}\",\"type\":\"KNOWS\"},\"id\":3}]",
+                     result);
+    }
+
+    @Test
+    public void shouldChainPropertyAndIndexCommandsThroughJobIds()
+    {
+        String result = new BatchCommandBuilder().createNode(1, MapUtil.stringMap("incarnation", "First Doctor"))
+                                                 .setProperty("{1}", "order", 1)
+                                                 .addToNodeIndex("incarnations", "incarnation", "First Doctor", "{1}")
+                                                 .removeFromNodeIndex("actors", "actor", "William Hartnell", 7)
+                                                 .build();
+        assertEquals("[{\"method\":\"POST\",\"to\":\"/node\",\"body\":{\"incarnation\":\"First Doctor\"},\"id\":1},"
+                             + "{\"method\":\"PUT\",\"to\":\"{1}/properties/order\",\"body\":1},"
+                             + "{\"method\":\"POST\",\"to\":\"/index/node/incarnations\",\"body\":{\"key\":\"incarnation\",\"value\":\"First Doctor\",\"uri\":\"{1}\"}},"
+                             + "{\"method\":\"DELETE\",\"to\":\"/index/node/actors/actor/William%20Hartnell/7\"}]",
+                     result);
+    }
+
+    @Test
+    public void shouldLeaveBracesInPropertyValuesAlone()
+    {
+        BatchCommand command = BatchCommand.createRelationship(3, "{1}/relationships", "{2}", "KNOWS",
+                                                               MapUtil.stringMap("note", "{1} meets {2}"));
+        assertEquals(new TreeSet<Integer>(Arrays.asList(1, 2)), command.references());
+        assertEquals(Collections.<Integer>emptySet(), BatchCommand.createNode(4, MapUtil.stringMap("episode", "{9}"))
+                                                                  .references());
+        assertEquals(Collections.singleton(1), BatchCommand.setProperty(5, "{1}", "quote", "{2}")
+                                                           .references());
+
+        Map<Integer, String> locations = new HashMap<Integer, String>();
+        locations.put(1, "http://localhost:7474/db/data/node/5");
+        locations.put(2, "http://localhost:7474/db/data/node/6");
+        String result = new BatchCommandBuilder().add(command.resolve(locations, "http://localhost:7474/db/data/"))
+                                                 .build();
+        assertEquals("[{\"method\":\"POST\",\"to\":\"/node/5/relationships\",\"body\":{\"to\":\"http://localhost:7474/db/data/node/6\",\"type\":\"KNOWS\",\"data\":{\"note\":\"{1} meets {2}\"}},\"id\":3}]",
+                     result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseToSendATypedReturnFilterToThePlainTraversalApi()
+    {
+        TraversalDescription traversal = new TraversalDescription();
+        traversal.setReturnFilter(ReturnFilter.propertyEquals("character", "Rose Tyler"));
+        BatchCommand.traverse(1, "/node/0", "node", traversal);
+    }
 }
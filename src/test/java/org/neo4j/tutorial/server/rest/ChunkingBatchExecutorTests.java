@@ -0,0 +1,185 @@
+package org.neo4j.tutorial.server.rest;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import com.sun.jersey.core.header.InBoundHeaders;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.server.rest.domain.JsonHelper;
+import org.neo4j.server.rest.domain.JsonParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChunkingBatchExecutorTests
+{
+    private static final String DATA_URI = "http://localhost:7474/db/data/";
+
+    private Client client;
+    private FakeBatchEndpoint endpoint;
+
+    @Before
+    public void createClient()
+    {
+        client = Client.create();
+        endpoint = new FakeBatchEndpoint();
+        client.addFilter(endpoint);
+    }
+
+    @Test
+    public void shouldSplitCommandsIntoChunksOfAtMostTheGivenNumber()
+    {
+        ChunkingBatchExecutor executor = new ChunkingBatchExecutor(client, DATA_URI, 2, Integer.MAX_VALUE, 1);
+        for (int jobId = 0; jobId < 5; jobId++)
+        {
+            executor.add(BatchCommand.createNode(jobId, MapUtil.stringMap("episode", String.valueOf(jobId))));
+        }
+        BatchReport report = executor.finish();
+
+        assertEquals(3, report.getChunks());
+        assertEquals(5, report.getCommands());
+        assertEquals(2, endpoint.chunks.get(0)
+                                       .size());
+        assertEquals(2, endpoint.chunks.get(1)
+                                       .size());
+        assertEquals(1, endpoint.chunks.get(2)
+                                       .size());
+    }
+
+    @Test
+    public void shouldSendAChunkOnceItReachesTheByteBound()
+    {
+        int maxBytes = 150;
+        String quote = "Bow ties are cool. Fezzes are cool too!!";
+        ChunkingBatchExecutor executor = new ChunkingBatchExecutor(client, DATA_URI, 1000, maxBytes, 1);
+        for (int jobId = 0; jobId < 5; jobId++)
+        {
+            executor.add(BatchCommand.createNode(jobId, MapUtil.stringMap("quote", quote)));
+        }
+        BatchReport report = executor.finish();
+
+        // a single command is more than half the bound, so every chunk but the last closes at two
+        assertEquals(3, report.getChunks());
+        for (int chunk = 0; chunk < 2; chunk++)
+        {
+            assertEquals(2, endpoint.chunks.get(chunk)
+                                           .size());
+            assertTrue(endpoint.bodies.get(chunk).length >= maxBytes);
+        }
+        assertEquals(1, endpoint.chunks.get(2)
+                                       .size());
+        assertEquals(report.getBytes(), endpoint.bodies.get(0).length + endpoint.bodies.get(1).length
+                + endpoint.bodies.get(2).length);
+    }
+
+    @Test
+    public void shouldRewriteReferencesToJobsInEarlierChunksOnly()
+    {
+        ChunkingBatchExecutor executor = new ChunkingBatchExecutor(client, DATA_URI, 2, Integer.MAX_VALUE, 1);
+        executor.add(BatchCommand.createNode(1, MapUtil.stringMap("character", "Rose Tyler")))
+                .add(BatchCommand.createNode(2, MapUtil.stringMap("character", "Doctor")))
+                .add(BatchCommand.createNode(3, MapUtil.stringMap("character", "Mickey Smith")))
+                .add(BatchCommand.createRelationship(4, "{3}/relationships", "{2}", "COMPANION_OF",
+                                                     MapUtil.stringMap("first words", "{1} says hello")))
+                .add(BatchCommand.addToNodeIndex(5, "characters", "character", "Rose Tyler", "{1}"));
+        executor.finish();
+
+        Map<String, Object> relationship = endpoint.chunks.get(1)
+                                                          .get(1);
+        assertEquals("{3}/relationships", relationship.get("to"));
+        Map<String, Object> body = asMap(relationship.get("body"));
+        assertEquals(DATA_URI + "node/1", body.get("to"));
+        assertEquals(Collections.singletonMap("first words", "{1} says hello"), body.get("data"));
+
+        Map<String, Object> indexEntry = endpoint.chunks.get(2)
+                                                        .get(0);
+        assertEquals(DATA_URI + "node/0", asMap(indexEntry.get("body")).get("uri"));
+    }
+
+    @Test
+    public void shouldFailWhenAChunkIsRejected()
+    {
+        endpoint.status = 500;
+        ChunkingBatchExecutor executor = new ChunkingBatchExecutor(client, DATA_URI, 2, Integer.MAX_VALUE, 1);
+        executor.add(BatchCommand.createNode(1, MapUtil.stringMap("character", "Rose Tyler")));
+        try
+        {
+            executor.finish();
+            fail("Expected the rejected chunk to fail the batch");
+        } catch (RuntimeException expected)
+        {
+            assertTrue(expected.getMessage(), expected.getMessage()
+                                                      .contains("status [500]"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value)
+    {
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Stands in for the server's /batch endpoint: every POST to /node creates the next node, and
+     * its location is reported against the job id.
+     */
+    private class FakeBatchEndpoint extends ClientFilter
+    {
+        private final List<List<Map<String, Object>>> chunks = Collections.synchronizedList(
+                new ArrayList<List<Map<String, Object>>>());
+        private final List<byte[]> bodies = Collections.synchronizedList(new ArrayList<byte[]>());
+        private int nodes = 0;
+        private int status = 200;
+
+        @Override
+        public synchronized ClientResponse handle(ClientRequest request) throws ClientHandlerException
+        {
+            assertEquals(DATA_URI + "batch", request.getURI()
+                                                    .toString());
+            try
+            {
+                byte[] body = (byte[]) request.getEntity();
+                List<Map<String, Object>> commands = JsonHelper.jsonToList(new String(body, "UTF-8"));
+                bodies.add(body);
+                chunks.add(commands);
+
+                List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+                for (Map<String, Object> command : commands)
+                {
+                    Map<String, Object> result = new LinkedHashMap<String, Object>();
+                    result.put("id", command.get("id"));
+                    if ("/node".equals(command.get("to")))
+                    {
+                        result.put("location", DATA_URI + "node/" + nodes++);
+                    }
+                    results.add(result);
+                }
+
+                InBoundHeaders headers = new InBoundHeaders();
+                headers.putSingle("Content-Type", "application/json");
+                return new ClientResponse(status, headers, new ByteArrayInputStream(JsonHelper.createJsonFrom(results)
+                                                                                           .getBytes("UTF-8")),
+                                          client.getMessageBodyWorkers());
+            } catch (JsonParseException e)
+            {
+                throw new ClientHandlerException(e);
+            } catch (UnsupportedEncodingException e)
+            {
+                throw new ClientHandlerException(e);
+            }
+        }
+    }
+}
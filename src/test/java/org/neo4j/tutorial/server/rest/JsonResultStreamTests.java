@@ -0,0 +1,49 @@
+package org.neo4j.tutorial.server.rest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonResultStreamTests
+{
+    @Test
+    public void shouldReadResultsOneAtATimeAndCloseAtTheEnd()
+    {
+        final boolean[] closed = {false};
+        ByteArrayInputStream in = new ByteArrayInputStream(
+                "[{\"self\":\"/node/1\",\"data\":{\"actor\":\"Tom Baker\"}},{\"self\":\"/node/2\"}]".getBytes())
+        {
+            @Override
+            public void close() throws IOException
+            {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        Iterator<Map<String, Object>> results = new JsonResultStream(in).iterator();
+        assertTrue(results.hasNext());
+        assertEquals("/node/1", results.next()
+                                       .get("self"));
+        assertFalse(closed[0]);
+        assertEquals("/node/2", results.next()
+                                       .get("self"));
+        assertFalse(results.hasNext());
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void shouldReadNoResultsFromAnEmptyArray()
+    {
+        JsonResultStream results = new JsonResultStream(new ByteArrayInputStream("[]".getBytes()));
+        assertFalse(results.iterator()
+                           .hasNext());
+    }
+}
@@ -0,0 +1,140 @@
+package org.neo4j.tutorial.server.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.server.NeoServerWithEmbeddedWebServer;
+import org.neo4j.tutorial.DatabaseHelper;
+import org.neo4j.tutorial.DoctorWhoRelationships;
+import org.neo4j.tutorial.DoctorWhoUniverseGenerator;
+import org.neo4j.tutorial.ServerDoctorWhoUniverse;
+import org.neo4j.tutorial.server.ServerBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class PagedTraversalTests
+{
+    private static ServerDoctorWhoUniverse universe;
+
+    @BeforeClass
+    public static void startServer() throws Exception
+    {
+        DoctorWhoUniverseGenerator generator = new DoctorWhoUniverseGenerator();
+        NeoServerWithEmbeddedWebServer server = ServerBuilder.server()
+                                                             .usingDatabaseDir(generator.getDatabaseDirectory())
+                                                             .build();
+        universe = new ServerDoctorWhoUniverse(server, generator);
+    }
+
+    @AfterClass
+    public static void stopServer()
+    {
+        universe.getRestClient()
+                .destroy();
+        universe.getServer()
+                .stop();
+    }
+
+    @Test
+    public void shouldReadEveryResultOnePageAtATime()
+    {
+        PagedTraversal traversal = companionsOfTheDoctor().pagedFrom(universe.getRestClient(), theDoctorUri(),
+                                                                      "node", 5, 60);
+        Set<Object> companions = new HashSet<Object>();
+        int pages = 0;
+        for (List<Map<String, Object>> page : traversal)
+        {
+            assertTrue(page.size() <= 5);
+            assertNotNull(traversal.getTraverserUri());
+            for (Map<String, Object> companion : page)
+            {
+                assertTrue(companions.add(companion.get("self")));
+            }
+            pages++;
+        }
+
+        int expected = numberOfCompanions();
+        assertEquals(expected, companions.size());
+        assertEquals((expected + 4) / 5, pages);
+    }
+
+    @Test
+    public void shouldReadTheSameResultsAsAnUnpagedTraversal()
+    {
+        Set<Object> paged = new HashSet<Object>();
+        for (Map<String, Object> companion : companionsOfTheDoctor().pagedFrom(universe.getRestClient(),
+                theDoctorUri(), "node", 7, 60)
+                                                                 .results())
+        {
+            paged.add(companion.get("self"));
+        }
+
+        Set<Object> unpaged = new HashSet<Object>();
+        RestClient client = universe.getRestClient();
+        for (Map<String, Object> companion : client.streamJsonList(client.resource(theDoctorUri())
+                                                                         .path("traverse")
+                                                                         .path("node"),
+                                                                   companionsOfTheDoctor().toJson()))
+        {
+            unpaged.add(companion.get("self"));
+        }
+
+        assertEquals(unpaged, paged);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldOnlyBeReadOnce()
+    {
+        PagedTraversal traversal = companionsOfTheDoctor().pagedFrom(universe.getRestClient(), theDoctorUri(),
+                                                                      "node", 50, 60);
+        for (List<Map<String, Object>> ignored : traversal)
+        {
+        }
+        traversal.iterator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseATypedReturnFilter()
+    {
+        TraversalDescription traversal = new TraversalDescription();
+        traversal.setReturnFilter(ReturnFilter.depthBetween(1, 2));
+        new PagedTraversal(null, "http://localhost:7474/db/data/node/0", "node", traversal);
+    }
+
+    private static TraversalDescription companionsOfTheDoctor()
+    {
+        TraversalDescription traversal = new TraversalDescription();
+        traversal.setRelationships(new RelationshipDescription("COMPANION_OF", RelationshipDescription.IN));
+        traversal.setMaxDepth(1);
+        traversal.setReturnFilter(ReturnFilter.allButStartNode());
+        return traversal;
+    }
+
+    private static String theDoctorUri()
+    {
+        return universe.theDoctor()
+                       .get("self")
+                       .toString();
+    }
+
+    private static int numberOfCompanions()
+    {
+        Node theDoctor = universe.getServer()
+                                 .getDatabase().graph.index()
+                                                     .forNodes("characters")
+                                                     .get("character", "Doctor")
+                                                     .getSingle();
+        return new DatabaseHelper(universe.getServer()
+                                          .getDatabase().graph).destructivelyCountRelationships(
+                theDoctor.getRelationships(DoctorWhoRelationships.COMPANION_OF, Direction.INCOMING));
+    }
+}
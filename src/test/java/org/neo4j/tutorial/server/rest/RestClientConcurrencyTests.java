@@ -0,0 +1,141 @@
+package org.neo4j.tutorial.server.rest;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RestClientConcurrencyTests
+{
+    private HttpServer server;
+    private RestClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/db/data/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                requests.incrementAndGet();
+                if (exchange.getRequestMethod()
+                            .equals("DELETE"))
+                {
+                    exchange.sendResponseHeaders(204, -1);
+                    exchange.close();
+                    return;
+                }
+                String path = exchange.getRequestURI()
+                                      .getPath();
+                byte[] body = (path.endsWith("/episodes")
+                        ? "[{\"episode\":\"157\"},{\"episode\":\"158\"}]"
+                        : "{\"character\":\"Doctor\"}").getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                        .set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        client = new RestClient(String.format("http://localhost:%d/db/data/", server.getAddress()
+                                                                                  .getPort()), 1);
+    }
+
+    @After
+    public void stopServer()
+    {
+        client.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldCountAStreamedResponseAgainstTheLimitUntilItIsClosed() throws Exception
+    {
+        JsonResultStream episodes = client.streamJsonList(client.data()
+                                                                .path("episodes"));
+        Future<Map<String, Object>> theDoctor = client.getJsonAsync(client.data()
+                                                                          .path("doctor"));
+        try
+        {
+            theDoctor.get(300, TimeUnit.MILLISECONDS);
+            fail("The second request should wait until the streamed response is closed");
+        } catch (TimeoutException expected)
+        {
+        }
+        assertEquals(1, requests.get());
+
+        episodes.close();
+
+        assertEquals("Doctor", theDoctor.get(5, TimeUnit.SECONDS)
+                                        .get("character"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void shouldHandBackThePermitOfAResponseThatWasReadToTheEnd() throws Exception
+    {
+        int episodes = 0;
+        for (Map<String, Object> ignored : client.streamJsonList(client.data()
+                                                                       .path("episodes")))
+        {
+            episodes++;
+        }
+
+        assertEquals(2, episodes);
+        assertEquals("Doctor", client.getJsonAsync(client.data()
+                                                         .path("doctor"))
+                                     .get(5, TimeUnit.SECONDS)
+                                     .get("character"));
+    }
+
+    @Test
+    public void shouldHandBackThePermitOfAResponseWithoutAnEntityStraightAway() throws Exception
+    {
+        ClientResponse deleted = client.data()
+                                       .path("doctor")
+                                       .delete(ClientResponse.class);
+
+        assertEquals(204, deleted.getStatus());
+        assertEquals("Doctor", client.getJsonAsync(client.data()
+                                                         .path("doctor"))
+                                     .get(5, TimeUnit.SECONDS)
+                                     .get("character"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldHandBackThePermitOfARequestThatFailed()
+    {
+        server.stop(0);
+        for (int attempt = 0; attempt < 2; attempt++)
+        {
+            try
+            {
+                client.getJson(client.data()
+                                     .path("doctor"));
+                fail("Nothing is listening any more");
+            } catch (ClientHandlerException expected)
+            {
+            }
+        }
+    }
+}
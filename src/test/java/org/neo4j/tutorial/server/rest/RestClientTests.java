@@ -0,0 +1,109 @@
+package org.neo4j.tutorial.server.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.server.NeoServerWithEmbeddedWebServer;
+import org.neo4j.tutorial.DoctorWhoUniverseGenerator;
+import org.neo4j.tutorial.ServerDoctorWhoUniverse;
+import org.neo4j.tutorial.server.ServerBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class RestClientTests
+{
+    private static ServerDoctorWhoUniverse universe;
+    private static RestClient client;
+
+    @BeforeClass
+    public static void startServer() throws Exception
+    {
+        DoctorWhoUniverseGenerator generator = new DoctorWhoUniverseGenerator();
+        NeoServerWithEmbeddedWebServer server = ServerBuilder.server()
+                                                             .usingDatabaseDir(generator.getDatabaseDirectory())
+                                                             .build();
+        universe = new ServerDoctorWhoUniverse(server, generator, 2);
+        client = universe.getRestClient();
+    }
+
+    @AfterClass
+    public static void stopServer()
+    {
+        client.destroy();
+        universe.getServer()
+                .stop();
+    }
+
+    @Test
+    public void shouldLookUpEachIndexedNodeOnceInTheOrderAsked()
+    {
+        Map<Object, Map<String, Object>> characters = client.getIndexedNodes("characters", "character",
+                Arrays.asList("Rose Tyler", "Doctor", "Rose Tyler", "Martha Jones", "Nobody In Particular"));
+
+        assertEquals(Arrays.<Object>asList("Rose Tyler", "Doctor", "Martha Jones", "Nobody In Particular"),
+                new ArrayList<Object>(characters.keySet()));
+        assertEquals("Rose Tyler", data(characters.get("Rose Tyler")).get("character"));
+        assertEquals("Doctor", data(characters.get("Doctor")).get("character"));
+        assertNull(characters.get("Nobody In Particular"));
+    }
+
+    @Test
+    public void shouldLookUpMoreNodesThanTheClientSendsAtOnce()
+    {
+        List<String> planets = Arrays.asList("Gallifrey", "Skaro", "Mondas", "Telos", "Earth");
+        Map<Object, Map<String, Object>> found = client.getIndexedNodes("planets", "planet", planets);
+
+        assertEquals(planets.size(), found.size());
+        for (String planet : planets)
+        {
+            assertEquals(planet, data(found.get(planet)).get("planet"));
+        }
+    }
+
+    @Test
+    public void shouldLookUpAnIndexedNodeAsynchronously() throws Exception
+    {
+        Future<Map<String, Object>> gallifrey = universe.getJsonFromIndexAsync("planets", "planet", "Gallifrey");
+        Future<Map<String, Object>> nowhere = client.getIndexedNodeAsync("planets", "planet", "Nowhere");
+
+        assertEquals("Gallifrey", data(gallifrey.get(10, TimeUnit.SECONDS)).get("planet"));
+        assertNull(nowhere.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldServeOtherRequestsOnceAStreamedResponseIsClosed() throws Exception
+    {
+        String theDoctor = universe.theDoctor()
+                                   .get("self")
+                                   .toString();
+        JsonResultStream first = client.streamJsonList(client.resource(theDoctor)
+                                                             .path("relationships")
+                                                             .path("all"));
+        JsonResultStream second = client.streamJsonList(client.resource(theDoctor)
+                                                              .path("relationships")
+                                                              .path("in"));
+        Future<Map<String, Object>> third = client.getIndexedNodeAsync("planets", "planet", "Skaro");
+
+        Thread.sleep(300);
+        assertFalse(third.isDone());
+
+        first.close();
+        second.close();
+        assertEquals("Skaro", data(third.get(10, TimeUnit.SECONDS)).get("planet"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> data(Map<String, Object> node)
+    {
+        return (Map<String, Object>) node.get("data");
+    }
+}